@@ -0,0 +1,122 @@
+package com.smartwaste.backend.bench;
+
+import com.smartwaste.backend.geo.GeoMath;
+import com.smartwaste.backend.routing.GeoGridIndex;
+import com.smartwaste.backend.routing.SavingsRouter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bin-to-truck assignment on its own: the nearest-driver loop of the greedy mode (grid index with
+ * moving trucks) and Clarke-Wright route construction for the savings mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AssignmentBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int bins;
+
+    @Param({"50", "500"})
+    public int drivers;
+
+    @Param({"6", "40"})
+    public int maxStops;
+
+    private SyntheticCity city;
+    private double[] load;
+    private double depotLat;
+    private double depotLng;
+    private double maxCapacity;
+    private double minLat, maxLat, minLng, maxLng;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        city = SyntheticCity.generate(bins, drivers, 42);
+
+        load = new double[bins];
+        for (int i = 0; i < bins; i++) {
+            int pct = city.binOverflow[i] ? 100 : city.binFill[i];
+            load[i] = city.binCapacityLiters[i] * pct / 100.0;
+        }
+
+        minLat = minLng = Double.MAX_VALUE;
+        maxLat = maxLng = -Double.MAX_VALUE;
+        for (int d = 0; d < drivers; d++) {
+            depotLat += city.driverLat[d];
+            depotLng += city.driverLng[d];
+            maxCapacity = Math.max(maxCapacity, city.driverCapacityLiters[d]);
+            includeInBounds(city.driverLat[d], city.driverLng[d]);
+        }
+        depotLat /= drivers;
+        depotLng /= drivers;
+        for (int i = 0; i < bins; i++) includeInBounds(city.binLat[i], city.binLng[i]);
+    }
+
+    private void includeInBounds(double lat, double lng) {
+        minLat = Math.min(minLat, lat);
+        maxLat = Math.max(maxLat, lat);
+        minLng = Math.min(minLng, lng);
+        maxLng = Math.max(maxLng, lng);
+    }
+
+    // same loop as AutoRouteService.assignToNearestDriver: bin -> nearest truck with room, truck moves there
+    @Benchmark
+    public long[] nearestDriver(RouteQuality quality) {
+        GeoGridIndex index = new GeoGridIndex(drivers, minLat, maxLat, minLng, maxLng);
+        int[] stops = new int[drivers];
+        for (int d = 0; d < drivers; d++) index.insert(d, city.driverLat[d], city.driverLng[d]);
+
+        long[] assignedTo = new long[bins];
+        double[] curLat = city.driverLat.clone();
+        double[] curLng = city.driverLng.clone();
+        double meters = 0;
+        int assigned = 0;
+
+        for (int i = 0; i < bins; i++) {
+            int best = index.nearest(city.binLat[i], city.binLng[i]);
+            if (best < 0) break;
+
+            meters += GeoMath.haversine(curLat[best], curLng[best], city.binLat[i], city.binLng[i]);
+            assignedTo[i] = city.driverId[best];
+            assigned++;
+            curLat[best] = city.binLat[i];
+            curLng[best] = city.binLng[i];
+            if (++stops[best] >= maxStops) {
+                index.remove(best);
+            } else {
+                index.move(best, curLat[best], curLng[best]);
+            }
+        }
+
+        int used = 0;
+        for (int s : stops) if (s > 0) used++;
+        quality.record(meters, used, assigned);
+        return assignedTo;
+    }
+
+    // routeKm counts the bin-to-bin legs only (the truck is picked later, in AutoRouteService)
+    @Benchmark
+    public List<int[]> savings(RouteQuality quality) {
+        List<int[]> routes = new SavingsRouter(SavingsRouter.DEFAULT_NEIGHBOURS)
+                .build(city.binLat, city.binLng, load, depotLat, depotLng, maxCapacity, maxStops);
+
+        double meters = 0;
+        int stops = 0;
+        for (int[] r : routes) {
+            stops += r.length;
+            for (int k = 0; k + 1 < r.length; k++) {
+                meters += GeoMath.haversine(
+                        city.binLat[r[k]], city.binLng[r[k]], city.binLat[r[k + 1]], city.binLng[r[k + 1]]);
+            }
+        }
+        quality.record(meters, routes.size(), stops);
+        return routes;
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartwaste.backend.bench;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JdbcTemplate that answers the routing reads (bins, drivers) from a {@link SyntheticCity}, so the
+ * real services can be benchmarked without a database. Row mappers run against a minimal ResultSet
+ * that only supports the by-name getters the services use.
+ */
+public class CityJdbcTemplate extends JdbcTemplate {
+
+    private final SyntheticCity city;
+
+    public CityJdbcTemplate(SyntheticCity city) {
+        this.city = city;
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper) {
+        return query(sql, rowMapper, new Object[0]);
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch) {
+        query(sql, (rs, rowNum) -> {
+            rch.processRow(rs);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+        String s = sql.toLowerCase();
+        if (s.contains("from driver")) return map(driverRows(), rowMapper);
+        if (s.contains("from bin")) {
+            // BinStateStore: every bin (no args); a threshold (first arg) keeps bins at/above it or
+            // overflowing, most urgent first
+            Integer threshold = args.length > 0 && args[0] instanceof Integer ? (Integer) args[0] : null;
+            return map(binRows(threshold), rowMapper);
+        }
+        throw new UnsupportedOperationException("Not simulated: " + sql);
+    }
+
+    private List<Map<String, Object>> binRows(Integer threshold) {
+        List<Integer> picked = new ArrayList<>();
+        for (int i = 0; i < city.bins; i++) {
+            if (threshold == null || city.binFill[i] >= threshold || city.binOverflow[i]) picked.add(i);
+        }
+        if (threshold != null) {
+            picked.sort(Comparator
+                    .comparing((Integer i) -> !city.binOverflow[i])
+                    .thenComparing(i -> -city.binFill[i])
+                    .thenComparing(i -> city.binId[i]));
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(picked.size());
+        for (int i : picked) {
+            rows.add(Map.of(
+                    "id", city.binId[i],
+                    "latitude", city.binLat[i],
+                    "longitude", city.binLng[i],
+                    "fill_level", city.binFill[i],
+                    "overflow", city.binOverflow[i],
+                    "capacity_liters", city.binCapacityLiters[i]
+            ));
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> driverRows() {
+        List<Map<String, Object>> rows = new ArrayList<>(city.drivers);
+        for (int d = 0; d < city.drivers; d++) {
+            rows.add(Map.of(
+                    "id", city.driverId[d],
+                    "latitude", city.driverLat[d],
+                    "longitude", city.driverLng[d],
+                    "capacity_liters", city.driverCapacityLiters[d]
+            ));
+        }
+        return rows;
+    }
+
+    private static <T> List<T> map(List<Map<String, Object>> rows, RowMapper<T> rowMapper) {
+        List<T> out = new ArrayList<>(rows.size());
+        AtomicReference<Map<String, Object>> current = new AtomicReference<>();
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, methodArgs) -> {
+                    String name = method.getName();
+                    if (name.equals("wasNull")) return false;
+                    if (methodArgs != null && methodArgs.length == 1 && methodArgs[0] instanceof String column) {
+                        Object v = current.get().get(column);
+                        if (v == null) throw new SQLException("Unknown column: " + column);
+                        switch (name) {
+                            case "getLong":
+                                return ((Number) v).longValue();
+                            case "getInt":
+                                return ((Number) v).intValue();
+                            case "getDouble":
+                                return ((Number) v).doubleValue();
+                            case "getBoolean":
+                                return v;
+                            default:
+                                break;
+                        }
+                    }
+                    throw new UnsupportedOperationException(name + Arrays.toString(methodArgs));
+                }
+        );
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                current.set(rows.get(i));
+                out.add(rowMapper.mapRow(rs, i));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,100 @@
+package com.smartwaste.backend.bench;
+
+import com.smartwaste.backend.geo.GeoMath;
+import com.smartwaste.backend.routing.NodeDistance;
+import com.smartwaste.backend.service.DistanceMatrixService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance kernels (one point to every bin) and the distance matrix: build and route views.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DistanceBenchmark {
+
+    @Param({"1000", "5000", "50000"})
+    public int bins;
+
+    private SyntheticCity city;
+    private double[] cosLat;
+    private double[] out;
+    private double qLat;
+    private double qLng;
+    private double qCos;
+
+    private CityJdbcTemplate jdbc;
+    private DistanceMatrixService matrix;
+    private long[] routeBinIds;
+    private double[] routeLat;
+    private double[] routeLng;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        city = SyntheticCity.generate(bins, 1, 42);
+        cosLat = GeoMath.cosLat(city.binLat);
+        out = new double[bins];
+        qLat = city.driverLat[0];
+        qLng = city.driverLng[0];
+        qCos = GeoMath.cosLat(qLat);
+
+        jdbc = new CityJdbcTemplate(city);
+        matrix = new DistanceMatrixService(jdbc, 64L * 1024 * 1024, true);
+        matrix.reload();
+
+        // a typical long route: 40 bins spread over the city
+        int n = Math.min(40, bins);
+        routeBinIds = new long[n];
+        routeLat = new double[n];
+        routeLng = new double[n];
+        for (int i = 0; i < n; i++) {
+            int b = (int) ((long) i * bins / n);
+            routeBinIds[i] = city.binId[b];
+            routeLat[i] = city.binLat[b];
+            routeLng[i] = city.binLng[b];
+        }
+    }
+
+    @Benchmark
+    public double[] haversineScalar() {
+        for (int i = 0; i < bins; i++) out[i] = GeoMath.haversine(qLat, qLng, city.binLat[i], city.binLng[i]);
+        return out;
+    }
+
+    @Benchmark
+    public double[] haversineBatch() {
+        GeoMath.haversineFrom(qLat, qLng, qCos, city.binLat, city.binLng, cosLat, 0, bins, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] fastDistanceBatch() {
+        GeoMath.fastDistanceFrom(qLat, qLng, qCos, city.binLat, city.binLng, cosLat, 0, bins, out);
+        return out;
+    }
+
+    // dense triangle while it fits 64 MB (~5.8k bins), kNN mode above
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public DistanceMatrixService matrixReload() {
+        DistanceMatrixService m = new DistanceMatrixService(jdbc, 64L * 1024 * 1024, true);
+        m.reload();
+        return m;
+    }
+
+    @Benchmark
+    public double routeView() {
+        NodeDistance d = matrix.view(routeBinIds, routeLat, routeLng);
+        double total = 0;
+        for (int i = 0; i + 1 < routeBinIds.length; i++) total += d.between(i, i + 1);
+        return total;
+    }
+}
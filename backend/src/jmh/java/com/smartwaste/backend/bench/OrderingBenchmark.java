@@ -0,0 +1,69 @@
+package com.smartwaste.backend.bench;
+
+import com.smartwaste.backend.geo.GeoMath;
+import com.smartwaste.backend.routing.NodeDistance;
+import com.smartwaste.backend.routing.RouteImprover;
+import com.smartwaste.backend.service.AutoRouteService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordering one truck's stops: nearest-neighbour construction alone and followed by 2-opt / Or-opt.
+ * Route length is reported for both, so the improver's gain per millisecond is visible.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderingBenchmark {
+
+    @Param({"6", "40", "200", "1000"})
+    public int stops;
+
+    @Param({"8"})
+    public int neighbours;
+
+    private NodeDistance dist;
+    private int nodes;
+    private RouteImprover improver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // node 0 = truck, nodes 1..stops = a contiguous slice of the city's bins
+        SyntheticCity city = SyntheticCity.generate(stops, 1, 7);
+        nodes = stops + 1;
+        double[] lat = new double[nodes];
+        double[] lng = new double[nodes];
+        lat[0] = city.driverLat[0];
+        lng[0] = city.driverLng[0];
+        System.arraycopy(city.binLat, 0, lat, 1, stops);
+        System.arraycopy(city.binLng, 0, lng, 1, stops);
+
+        double[] cos = GeoMath.cosLat(lat);
+        double[] matrix = new double[nodes * nodes];
+        for (int a = 0; a < nodes; a++) {
+            for (int b = 0; b < nodes; b++) {
+                matrix[a * nodes + b] = GeoMath.haversine(lat[a], lng[a], cos[a], lat[b], lng[b], cos[b]);
+            }
+        }
+        dist = (a, b) -> matrix[a * nodes + b];
+        improver = new RouteImprover(neighbours);
+    }
+
+    @Benchmark
+    public int[] nearestNeighbour(RouteQuality quality) {
+        int[] tour = AutoRouteService.nearestNeighborOrderFromStart(nodes, dist);
+        quality.record(RouteImprover.pathLength(tour, dist), 1, stops);
+        return tour;
+    }
+
+    @Benchmark
+    public int[] nearestNeighbourImproved(RouteQuality quality) {
+        int[] tour = improver.improve(AutoRouteService.nearestNeighborOrderFromStart(nodes, dist), dist, RouteImprover.NO_DEADLINE);
+        quality.record(RouteImprover.pathLength(tour, dist), 1, stops);
+        return tour;
+    }
+}
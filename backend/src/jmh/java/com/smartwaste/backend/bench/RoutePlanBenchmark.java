@@ -0,0 +1,78 @@
+package com.smartwaste.backend.bench;
+
+import com.smartwaste.backend.routing.RouteImprover;
+import com.smartwaste.backend.service.AutoRouteService;
+import com.smartwaste.backend.service.BinStateStore;
+import com.smartwaste.backend.service.DistanceMatrixService;
+import com.smartwaste.backend.service.RouteDistanceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full plan (load, assign, order, improve) through {@link AutoRouteService#planRoutes}, without the
+ * database write. Reports route length next to the time so speed/quality trade-offs stay visible.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoutePlanBenchmark {
+
+    private static final LocalDate ROUTE_DATE = LocalDate.of(2026, 1, 12);
+
+    @Param({"1000", "10000", "50000"})
+    public int bins;
+
+    @Param({"50", "500"})
+    public int drivers;
+
+    @Param({AutoRouteService.ALGORITHM_GREEDY, AutoRouteService.ALGORITHM_SAVINGS})
+    public String algorithm;
+
+    @Param({"true", "false"})
+    public boolean improve;
+
+    @Param({"6", "40"})
+    public int maxStops;
+
+    private AutoRouteService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCity city = SyntheticCity.generate(bins, drivers, 42);
+        CityJdbcTemplate jdbc = new CityJdbcTemplate(city);
+
+        DistanceMatrixService matrix = new DistanceMatrixService(jdbc, 64L * 1024 * 1024, true);
+        matrix.reload();
+
+        BinStateStore binState = new BinStateStore(jdbc, 5000);
+        binState.load();
+
+        ApplicationEventPublisher noEvents = event -> { };
+        service = new AutoRouteService(
+                jdbc, new TransactionTemplate(), matrix, new RouteDistanceService(jdbc, matrix, noEvents), binState, noEvents,
+                improve, RouteImprover.DEFAULT_MAX_MOVES, 0, 8,
+                true, 0,
+                24, 240, 8000
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public AutoRouteService.RoutePlan plan(RouteQuality quality) {
+        AutoRouteService.RoutePlan plan = service.planRoutes(
+                ROUTE_DATE, 80, maxStops, algorithm, AutoRouteService.GenerationProgress.NONE);
+        quality.record(plan.distanceMeters(), plan.routeCount(), plan.binsUsed());
+        return plan;
+    }
+}
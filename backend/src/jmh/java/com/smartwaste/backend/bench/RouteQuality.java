@@ -0,0 +1,52 @@
+package com.smartwaste.backend.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Secondary results printed next to the timing: route quality of the plan a benchmark built.
+ * <p>
+ * JMH sums EVENTS counters over the measurement iterations, so the values are captured in the first
+ * measurement iteration only and stay 0 in the others; the table then shows the plain values.
+ * Inputs are deterministic, so every invocation builds (nearly) the same plan.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class RouteQuality {
+
+    public double routeKm;
+    public double kmPerStop;
+    public long routes;
+    public long stops;
+
+    private boolean captured;
+    private boolean capturing;
+
+    @Setup(Level.Iteration)
+    public void begin(IterationParams iteration) {
+        routeKm = 0;
+        kmPerStop = 0;
+        routes = 0;
+        stops = 0;
+        capturing = !captured && iteration.getType() == IterationType.MEASUREMENT;
+    }
+
+    @TearDown(Level.Iteration)
+    public void end() {
+        if (capturing) captured = true;
+    }
+
+    public void record(double meters, int routeCount, int stopCount) {
+        if (!capturing) return;
+        routeKm = meters / 1000.0;
+        kmPerStop = stopCount == 0 ? 0 : routeKm / stopCount;
+        routes = routeCount;
+        stops = stopCount;
+    }
+}
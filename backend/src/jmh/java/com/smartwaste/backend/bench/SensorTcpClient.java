@@ -0,0 +1,114 @@
+package com.smartwaste.backend.bench;
+
+import com.smartwaste.backend.util.SensorFrame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for a fleet of bin sensors on the TCP ingest port: opens many connections from one thread and
+ * sends {@link SensorFrame}s round-robin over them at a fixed total rate, random bins and levels.
+ * <p>
+ * Args: {@code host port connections frames-per-second seconds [max-bin-id]}. Tens of thousands of
+ * connections need a raised open-file limit ({@code ulimit -n}) on both sides. Compare the counts printed
+ * here with {@code GET /api/bins/fill/tcp/stats} and {@code /api/bins/fill/queue/stats}.
+ */
+public final class SensorTcpClient {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 5) {
+            System.err.println("Usage: SensorTcpClient host port connections frames-per-second seconds [max-bin-id]");
+            System.exit(2);
+        }
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int connections = Integer.parseInt(args[2]);
+        long rate = Long.parseLong(args[3]);
+        int seconds = Integer.parseInt(args[4]);
+        long maxBinId = args.length > 5 ? Long.parseLong(args[5]) : 10_000;
+
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        SocketChannel[] channels = new SocketChannel[connections];
+        long t0 = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            try {
+                channels[i] = SocketChannel.open(address);
+                channels[i].configureBlocking(false);
+            } catch (IOException e) {
+                System.err.println("Connection " + i + " failed: " + e.getMessage() + " (ulimit -n?)");
+                connections = i;
+                break;
+            }
+        }
+        System.out.printf("%d connection(s) open in %d ms%n", connections,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        if (connections == 0) return;
+
+        SplittableRandom random = new SplittableRandom(42);
+        ByteBuffer frame = ByteBuffer.allocate(SensorFrame.SIZE);
+        long sent = 0;
+        long failed = 0;
+        int next = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(1);
+        long sentAtReport = 0;
+
+        for (long tick = start; tick < end; tick += TICK_NANOS) {
+            long due = rate * (tick + TICK_NANOS - start) / TimeUnit.SECONDS.toNanos(1);
+            while (sent + failed < due) {
+                frame.clear();
+                SensorFrame.write(frame, 1 + random.nextLong(maxBinId), random.nextInt(101), System.currentTimeMillis());
+                frame.flip();
+                int c = next;
+                next = (next + 1) % connections;
+                if (channels[c] != null && writeFully(channels[c], frame)) {
+                    sent++;
+                } else {
+                    failed++;
+                    if (channels[c] != null) {
+                        // a half-written frame breaks the stream's framing: drop the connection
+                        channels[c].close();
+                        channels[c] = null;
+                    }
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                System.out.printf("sent %,d frames/s (total %,d, failed %,d)%n", sent - sentAtReport, sent, failed);
+                sentAtReport = sent;
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+            }
+            long sleep = tick + TICK_NANOS - System.nanoTime();
+            if (sleep > 0) TimeUnit.NANOSECONDS.sleep(sleep);
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("done: %,d frames in %.1f s (%,.0f/s), %,d failed%n", sent, elapsed, sent / elapsed, failed);
+        for (SocketChannel ch : channels) {
+            if (ch != null) ch.close();
+        }
+    }
+
+    // a frame must go out whole to keep the stream framed; a full socket buffer is waited out briefly
+    private static boolean writeFully(SocketChannel ch, ByteBuffer frame) {
+        try {
+            for (int spins = 0; frame.hasRemaining(); spins++) {
+                if (ch.write(frame) == 0) {
+                    if (spins > 1000) throw new IOException("Socket buffer stays full");
+                    Thread.onSpinWait();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.smartwaste.backend.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic city for benchmarks: bins in dense neighbourhood clusters plus some scattered
+ * ones, trucks spread over the whole area. The same (bins, drivers, seed) always gives the same city.
+ */
+public final class SyntheticCity {
+
+    // Colombo-sized area: ~15 km radius around the city centre
+    private static final double CENTER_LAT = 6.9271;
+    private static final double CENTER_LNG = 79.8612;
+    private static final double RADIUS_M = 15_000;
+    private static final double METERS_PER_DEG_LAT = 111_320;
+
+    private static final int[] BIN_SIZES_LITERS = {120, 240, 240, 360, 660, 1100};
+    private static final int[] TRUCK_SIZES_LITERS = {6000, 8000, 8000, 12000};
+
+    public final int bins;
+    public final int drivers;
+
+    public final long[] binId;
+    public final double[] binLat;
+    public final double[] binLng;
+    public final int[] binFill;
+    public final boolean[] binOverflow;
+    public final int[] binCapacityLiters;
+
+    public final long[] driverId;
+    public final double[] driverLat;
+    public final double[] driverLng;
+    public final int[] driverCapacityLiters;
+
+    private SyntheticCity(int bins, int drivers) {
+        this.bins = bins;
+        this.drivers = drivers;
+        this.binId = new long[bins];
+        this.binLat = new double[bins];
+        this.binLng = new double[bins];
+        this.binFill = new int[bins];
+        this.binOverflow = new boolean[bins];
+        this.binCapacityLiters = new int[bins];
+        this.driverId = new long[drivers];
+        this.driverLat = new double[drivers];
+        this.driverLng = new double[drivers];
+        this.driverCapacityLiters = new int[drivers];
+    }
+
+    /**
+     * @param bins    number of bins (tested up to 50k)
+     * @param drivers number of trucks (tested up to 500)
+     * @param seed    random seed
+     */
+    public static SyntheticCity generate(int bins, int drivers, long seed) {
+        SyntheticCity c = new SyntheticCity(bins, drivers);
+        SplittableRandom rnd = new SplittableRandom(seed);
+
+        // one neighbourhood per ~400 bins, each with its own spread
+        int clusters = Math.max(4, bins / 400);
+        double[] clusterLat = new double[clusters];
+        double[] clusterLng = new double[clusters];
+        double[] clusterSpreadM = new double[clusters];
+        for (int k = 0; k < clusters; k++) {
+            double[] p = pointInDisk(rnd, RADIUS_M * 0.9);
+            clusterLat[k] = p[0];
+            clusterLng[k] = p[1];
+            clusterSpreadM[k] = 300 + rnd.nextDouble() * 900;
+        }
+
+        for (int i = 0; i < bins; i++) {
+            c.binId[i] = i + 1;
+            if (rnd.nextDouble() < 0.15) {
+                // scattered bins (parks, bus stops, ...)
+                double[] p = pointInDisk(rnd, RADIUS_M);
+                c.binLat[i] = p[0];
+                c.binLng[i] = p[1];
+            } else {
+                int k = rnd.nextInt(clusters);
+                double dy = gaussian(rnd) * clusterSpreadM[k];
+                double dx = gaussian(rnd) * clusterSpreadM[k];
+                c.binLat[i] = clusterLat[k] + dy / METERS_PER_DEG_LAT;
+                c.binLng[i] = clusterLng[k] + dx / metersPerDegLng(clusterLat[k]);
+            }
+
+            // ~40% need collection at the default threshold (80), ~5% overflow
+            double r = rnd.nextDouble();
+            if (r < 0.05) {
+                c.binFill[i] = 100;
+                c.binOverflow[i] = true;
+            } else if (r < 0.40) {
+                c.binFill[i] = 80 + rnd.nextInt(21);
+            } else {
+                c.binFill[i] = rnd.nextInt(80);
+            }
+            c.binCapacityLiters[i] = BIN_SIZES_LITERS[rnd.nextInt(BIN_SIZES_LITERS.length)];
+        }
+
+        for (int d = 0; d < drivers; d++) {
+            c.driverId[d] = d + 1;
+            double[] p = pointInDisk(rnd, RADIUS_M);
+            c.driverLat[d] = p[0];
+            c.driverLng[d] = p[1];
+            c.driverCapacityLiters[d] = TRUCK_SIZES_LITERS[rnd.nextInt(TRUCK_SIZES_LITERS.length)];
+        }
+        return c;
+    }
+
+    private static double[] pointInDisk(SplittableRandom rnd, double radiusM) {
+        double r = radiusM * Math.sqrt(rnd.nextDouble());
+        double a = rnd.nextDouble() * 2 * Math.PI;
+        double lat = CENTER_LAT + r * Math.sin(a) / METERS_PER_DEG_LAT;
+        double lng = CENTER_LNG + r * Math.cos(a) / metersPerDegLng(CENTER_LAT);
+        return new double[]{lat, lng};
+    }
+
+    private static double metersPerDegLng(double lat) {
+        return METERS_PER_DEG_LAT * Math.cos(Math.toRadians(lat));
+    }
+
+    // Box-Muller (SplittableRandom has no nextGaussian on Java 17)
+    private static double gaussian(SplittableRandom rnd) {
+        double u = 1 - rnd.nextDouble();
+        double v = rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
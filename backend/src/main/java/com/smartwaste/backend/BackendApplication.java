@@ -23,7 +23,8 @@ public class BackendApplication {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**")                       // Allow all endpoints
                         .allowedOrigins("http://localhost:5173") // Your frontend URL
-                        .allowedMethods("*");                    // Allow GET, POST, etc.
+                        .allowedMethods("*")                     // Allow GET, POST, etc.
+                        .exposedHeaders("X-Next-After-Id", "ETag"); // Route list paging cursor, change versions
             }
         };
     }
@@ -1,33 +1,101 @@
 package com.smartwaste.backend.controller;
 
 import com.smartwaste.backend.service.AutoRouteService;
+import com.smartwaste.backend.service.RouteJobService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/routes")
 public class AutoRouteController {
 
     private final AutoRouteService autoRouteService;
+    private final RouteJobService routeJobService;
 
-    public AutoRouteController(AutoRouteService autoRouteService) {
+    public AutoRouteController(AutoRouteService autoRouteService, RouteJobService routeJobService) {
         this.autoRouteService = autoRouteService;
+        this.routeJobService = routeJobService;
     }
 
     // POST http://localhost:8080/api/routes/auto-generate
     // Optional query params:
-    // ?date=2026-01-12&threshold=80&maxStops=6
+    // ?date=2026-01-12&threshold=80&maxStops=6&algorithm=savings
+    // algorithm: greedy (nearest driver, default) | savings (capacity-aware Clarke-Wright)
     @PostMapping("/auto-generate")
-    public ResponseEntity<Map<String, Object>> autoGenerate(
+    public ResponseEntity<?> autoGenerate(
             @RequestParam(required = false) String date,
             @RequestParam(defaultValue = "80") int threshold,
-            @RequestParam(defaultValue = "6") int maxStops
+            @RequestParam(defaultValue = "6") int maxStops,
+            @RequestParam(defaultValue = AutoRouteService.ALGORITHM_GREEDY) String algorithm
     ) {
         LocalDate routeDate = (date == null || date.isBlank()) ? LocalDate.now() : LocalDate.parse(date);
-        Map<String, Object> result = autoRouteService.generateRoutes(routeDate, threshold, maxStops);
+        try {
+            Map<String, Object> result = autoRouteService.generateRoutes(
+                    routeDate, threshold, maxStops, algorithm.trim().toLowerCase());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // POST http://localhost:8080/api/routes/auto-insert
+    // Puts new critical bins into the day's assigned / in_progress routes without rebuilding them.
+    // Optional query params:
+    // ?date=2026-01-12&threshold=80&maxStops=6&binIds=12,15
+    @PostMapping("/auto-insert")
+    public ResponseEntity<?> autoInsert(
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "80") int threshold,
+            @RequestParam(defaultValue = "6") int maxStops,
+            @RequestParam(required = false) List<Long> binIds
+    ) {
+        LocalDate routeDate = (date == null || date.isBlank()) ? LocalDate.now() : LocalDate.parse(date);
+        Map<String, Object> result = autoRouteService.insertIntoActiveRoutes(routeDate, threshold, maxStops, binIds);
         return ResponseEntity.ok(result);
     }
+
+    // POST http://localhost:8080/api/routes/auto-generate/jobs
+    // Same params as auto-generate; returns 202 with a jobId right away.
+    // A job already queued/running for that date is returned instead of starting a second one.
+    @PostMapping("/auto-generate/jobs")
+    public ResponseEntity<?> submitAutoGenerateJob(
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "80") int threshold,
+            @RequestParam(defaultValue = "6") int maxStops,
+            @RequestParam(defaultValue = AutoRouteService.ALGORITHM_GREEDY) String algorithm
+    ) {
+        LocalDate routeDate = (date == null || date.isBlank()) ? LocalDate.now() : LocalDate.parse(date);
+        try {
+            Map<String, Object> job = routeJobService.submit(
+                    routeDate, threshold, maxStops, algorithm.trim().toLowerCase());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many route jobs queued, try again later");
+        }
+    }
+
+    // GET http://localhost:8080/api/routes/auto-generate/jobs/{jobId}
+    // status: queued | running | succeeded | failed | cancelled, phase + stepsDone/stepsTotal while running
+    @GetMapping("/auto-generate/jobs/{jobId}")
+    public ResponseEntity<?> getAutoGenerateJob(@PathVariable String jobId) {
+        return routeJobService.get(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // DELETE http://localhost:8080/api/routes/auto-generate/jobs/{jobId}  (cancel)
+    @DeleteMapping("/auto-generate/jobs/{jobId}")
+    public ResponseEntity<?> cancelAutoGenerateJob(@PathVariable String jobId) {
+        return routeJobService.cancel(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
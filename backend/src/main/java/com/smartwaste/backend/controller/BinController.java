@@ -2,11 +2,13 @@ package com.smartwaste.backend.controller;
 
 import com.smartwaste.backend.dto.BinDTO;
 import com.smartwaste.backend.service.BinService;
+import com.smartwaste.backend.util.BinFeedCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/bins")
@@ -16,9 +18,32 @@ public class BinController {
     private final BinService binService;
 
     // ✅ Get all bins
+    // ✅ GET /api/bins?since=1768900000000123  -> {version, full, bins, removed}: only what changed
+    // Responses carry ETag "bins-<version>"; If-None-Match with the current one answers 304.
     @GetMapping
-    public ResponseEntity<List<BinDTO>> getAllBins() {
-        return ResponseEntity.ok(binService.getAllBins());
+    public ResponseEntity<?> getAllBins(@RequestParam(required = false) Long since, WebRequest request) {
+        if (request.checkNotModified(binsEtag(""))) return null;
+        if (since != null) {
+            return revalidate().body(binService.getBinsChangedSince(since));
+        }
+        return revalidate().body(binService.getAllBins());
+    }
+
+    // ✅ Get all bins, compact binary (Accept: application/vnd.smartwaste.bins, see BinFeedCodec)
+    @GetMapping(produces = BinFeedCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getAllBinsEncoded(WebRequest request) {
+        if (request.checkNotModified(binsEtag("-feed"))) return null;
+        return revalidate().body(binService.getAllBinsEncoded());
+    }
+
+    // version is read before the bins: a change that lands in between only makes the client read again
+    private String binsEtag(String representation) {
+        return "\"bins-" + binService.getVersion() + representation + "\"";
+    }
+
+    // browsers keep the body but ask (If-None-Match) before every reuse
+    private static ResponseEntity.BodyBuilder revalidate() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
     }
 
     // ✅ Create a bin
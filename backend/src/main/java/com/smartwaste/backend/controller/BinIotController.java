@@ -1,51 +1,51 @@
 package com.smartwaste.backend.controller;
 
+import com.smartwaste.backend.dto.BinFillReading;
+import com.smartwaste.backend.iot.SensorTcpListener;
+import com.smartwaste.backend.service.BinIngestPipeline;
+import com.smartwaste.backend.service.BinIngestService;
+import com.smartwaste.backend.service.BinStateStore;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/bins")
 public class BinIotController {
 
-    private final JdbcTemplate jdbc;
+    private final BinStateStore binState;
+    private final BinIngestService ingestService;
+    private final BinIngestPipeline ingestPipeline;
+    private final SensorTcpListener sensorTcpListener;
 
-    public BinIotController(JdbcTemplate jdbc) {
-        this.jdbc = jdbc;
+    public BinIotController(BinStateStore binState, BinIngestService ingestService,
+                            BinIngestPipeline ingestPipeline, SensorTcpListener sensorTcpListener) {
+        this.binState = binState;
+        this.ingestService = ingestService;
+        this.ingestPipeline = ingestPipeline;
+        this.sensorTcpListener = sensorTcpListener;
     }
 
     // ✅ PATCH /api/bins/{id}/fill?level=85
     @PatchMapping("/{id}/fill")
     public ResponseEntity<?> updateFillLevel(@PathVariable Long id, @RequestParam int level) {
 
-        // 1) read current fill
-        List<Map<String, Object>> rows = jdbc.queryForList(
-                "SELECT id, fill_level, overflow FROM bin WHERE id = ?",
-                id
-        );
+        // 1) read current fill (in memory)
+        Optional<BinStateStore.BinState> current = binState.get(id);
 
-        if (rows.isEmpty()) {
+        if (current.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        int currentFill = ((Number) rows.get(0).get("fill_level")).intValue();
+        int currentFill = current.get().fillLevel();
 
         // 2) OPTION A lock: if bin belongs to active route (assigned or in_progress)
-        Boolean locked = jdbc.queryForObject(
-                "SELECT EXISTS (" +
-                        "SELECT 1 " +
-                        "FROM collection_route_bins crb " +
-                        "JOIN collection_route cr ON cr.id = crb.route_id " +
-                        "WHERE crb.bin_id = ? AND LOWER(cr.status) IN ('assigned','in_progress')" +
-                        ")",
-                Boolean.class,
-                id
-        );
-
-        boolean isLocked = locked != null && locked;
+        boolean isLocked = ingestService.isLocked(id);
 
         // Ignore IoT increases when locked
         if (isLocked && level > currentFill) {
@@ -58,13 +58,10 @@ public class BinIotController {
             ));
         }
 
-        boolean overflow = level >= 95;
+        boolean overflow = level >= BinIngestService.OVERFLOW_LEVEL;
 
-        // 3) update bin
-        jdbc.update(
-                "UPDATE bin SET fill_level = ?, overflow = ? WHERE id = ?",
-                level, overflow, id
-        );
+        // 3) update bin (the table follows within bin-state.flush-interval-ms)
+        binState.updateFill(id, level, overflow);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Bin updated",
@@ -74,4 +71,52 @@ public class BinIotController {
                 "locked", isLocked
         ));
     }
+
+    // ✅ POST /api/bins/fill/batch   body: [{"binId":12,"level":85,"timestamp":"2026-01-20T08:15:00Z"}, ...]
+    // Same lock rule as above for every reading; per-reading outcome in request order:
+    // updated | ignored_locked | not_found | invalid
+    @PostMapping("/fill/batch")
+    public ResponseEntity<?> ingestFillLevels(@RequestBody List<BinFillReading> readings) {
+        try {
+            return ResponseEntity.ok(ingestService.ingest(readings));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ POST /api/bins/fill/queue   body: same readings as /fill/batch
+    // Queued and applied in the background (latest reading per bin wins): 202 when queued,
+    // 429 + Retry-After when the queue has no room for the whole batch (nothing was queued)
+    @PostMapping("/fill/queue")
+    public ResponseEntity<?> queueFillLevels(@RequestBody List<BinFillReading> readings) {
+        try {
+            if (!ingestPipeline.submit(readings)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of(
+                                "message", "Ingest queue full, retry later",
+                                "queueDepth", ingestPipeline.queueDepth(),
+                                "queueCapacity", ingestPipeline.queueCapacity()
+                        ));
+            }
+            return ResponseEntity.accepted().body(Map.of(
+                    "accepted", readings.size(),
+                    "queueDepth", ingestPipeline.queueDepth()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ GET /api/bins/fill/queue/stats  (queue depth, accepted / rejected / coalesced counts, latency)
+    @GetMapping("/fill/queue/stats")
+    public Map<String, Object> queueStats() {
+        return ingestPipeline.stats();
+    }
+
+    // ✅ GET /api/bins/fill/tcp/stats  (binary sensor port: connections, frames, invalid / dropped frames)
+    @GetMapping("/fill/tcp/stats")
+    public Map<String, Object> tcpStats() {
+        return sensorTcpListener.stats();
+    }
 }
@@ -4,10 +4,13 @@ import com.smartwaste.backend.dto.RouteDto;
 import com.smartwaste.backend.dto.RouteStatusUpdateRequest;
 import com.smartwaste.backend.service.RouteQueryService;
 import com.smartwaste.backend.service.RouteStatusService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +18,8 @@ import java.util.Map;
 @RequestMapping("/api/routes")
 public class CollectionRouteController {
 
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
     private final RouteQueryService routeQueryService;
     private final RouteStatusService routeStatusService;
 
@@ -23,15 +28,80 @@ public class CollectionRouteController {
         this.routeStatusService = routeStatusService;
     }
 
-    // ✅ GET /api/routes
-    // ✅ GET /api/routes?date=2026-01-20
+    // ✅ GET /api/routes                      (newest first, first page)
+    // ✅ GET /api/routes?date=2026-01-20        (every route of the day, unpaged unless limit / afterId is given)
+    // ✅ GET /api/routes?from=2026-01-01&to=2026-01-31&driverId=3&status=assigned&limit=100
+    // ✅ GET /api/routes?afterId=1234           (next page: X-Next-After-Id of the previous response)
+    // ✅ GET /api/routes?date=2026-01-20&since=1768900000000123   (only what changed, see findRoutesChangedSince)
+    // Responses carry ETag "routes-<version>"; If-None-Match with the current one answers 304.
     @GetMapping
-    public List<RouteDto> getRoutes(@RequestParam(required = false) String date) {
-        if (date == null || date.isBlank()) {
-            return routeQueryService.getAllRoutesWithDistance();
+    public ResponseEntity<?> getRoutes(
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long since,
+            WebRequest request
+    ) {
+        // version before the rows: a change that lands in between only makes the client read it again
+        String etag = routesEtag();
+        if (request.checkNotModified(etag)) return null;
+
+        try {
+            LocalDate fromDate = parseDate(from);
+            LocalDate toDate = parseDate(to);
+            if (date != null && !date.isBlank()) {
+                fromDate = toDate = parseDate(date);
+            }
+            if (limit != null && (limit < 1 || limit > RouteQueryService.MAX_PAGE_SIZE)) {
+                throw new IllegalArgumentException("limit must be between 1 and " + RouteQueryService.MAX_PAGE_SIZE);
+            }
+            // one day is bounded by the fleet and the dashboards read it whole; everything else is paged
+            boolean wholeDay = date != null && !date.isBlank() && limit == null && afterId == null;
+            if (limit == null && !wholeDay) limit = RouteQueryService.DEFAULT_PAGE_SIZE;
+
+            if (since != null) {
+                return ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .body(routeQueryService.findRoutesChangedSince(since, fromDate, toDate, driverId, status));
+            }
+
+            List<RouteDto> routes = routeQueryService.findRoutes(fromDate, toDate, driverId, status, afterId, limit);
+
+            // ✅ a full page may have more after it
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+            if (limit != null && routes.size() == limit) {
+                ok.header(NEXT_AFTER_ID_HEADER, String.valueOf(routes.get(routes.size() - 1).getId()));
+            }
+            return ok.body(routes);
+
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Invalid date: " + e.getParsedString() + " (use yyyy-MM-dd)");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ GET /api/routes/dates  (days with routes, newest first)
+    @GetMapping("/dates")
+    public List<Map<String, Object>> getRouteDates(@RequestParam(defaultValue = "365") int limit) {
+        return routeQueryService.getRouteDates(limit);
+    }
+
+    // ✅ GET /api/routes/{id}
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getRoute(@PathVariable Long id, WebRequest request) {
+        String etag = routesEtag();
+        if (request.checkNotModified(etag)) return null;
+
+        RouteDto route = routeQueryService.getRouteWithDistance(id);
+        if (route == null) {
+            return ResponseEntity.status(404).body("Route not found: " + id);
         }
-        LocalDate d = LocalDate.parse(date.trim());
-        return routeQueryService.getRoutesByDateWithDistance(d);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(route);
     }
 
     // ✅ PATCH /api/routes/{id}/status?status=in_progress  (Option 1)
@@ -90,4 +160,12 @@ public class CollectionRouteController {
             return ResponseEntity.status(500).body(e.getMessage());
         }
     }
+
+    private String routesEtag() {
+        return "\"routes-" + routeQueryService.version() + "\"";
+    }
+
+    private static LocalDate parseDate(String value) {
+        return (value == null || value.isBlank()) ? null : LocalDate.parse(value.trim());
+    }
 }
@@ -0,0 +1,81 @@
+package com.smartwaste.backend.controller;
+
+import com.smartwaste.backend.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // ✅ GET /api/export/bins               (NDJSON, one bin per line)
+    // ✅ GET /api/export/bins?format=csv
+    @GetMapping("/bins")
+    public void exportBins(@RequestParam(required = false) String format, HttpServletResponse response)
+            throws IOException {
+        ExportService.Format f;
+        try {
+            f = ExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        startDownload(response, f, "bins");
+        exportService.exportBins(f, response.getOutputStream());
+    }
+
+    // ✅ GET /api/export/routes?from=2025-01-01&to=2025-12-31   (same filters as /api/routes, no paging)
+    // ✅ GET /api/export/routes?driverId=3&status=completed&format=csv
+    @GetMapping("/routes")
+    public void exportRoutes(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String format,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportService.Format f;
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            f = ExportService.Format.parse(format);
+            fromDate = parseDate(from);
+            toDate = parseDate(to);
+        } catch (DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date: " + e.getParsedString() + " (use yyyy-MM-dd)");
+            return;
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        startDownload(response, f, "routes");
+        exportService.exportRoutes(f, fromDate, toDate, driverId, status, response.getOutputStream());
+    }
+
+    // headers go out with the first rows; the body is written while the rows are read
+    private static void startDownload(HttpServletResponse response, ExportService.Format format, String name) {
+        response.setContentType(format.contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + "." + format.extension + "\"");
+    }
+
+    private static LocalDate parseDate(String value) {
+        return (value == null || value.isBlank()) ? null : LocalDate.parse(value.trim());
+    }
+}
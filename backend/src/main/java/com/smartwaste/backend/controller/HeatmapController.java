@@ -1,8 +1,17 @@
 package com.smartwaste.backend.controller;
 
-import org.springframework.jdbc.core.JdbcTemplate;
+import com.smartwaste.backend.service.BinStateStore;
+import com.smartwaste.backend.service.HeatmapService;
+import com.smartwaste.backend.util.BinFeedCodec;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -10,10 +19,12 @@ import java.util.Map;
 @RequestMapping("/api/heatmap")
 public class HeatmapController {
 
-    private final JdbcTemplate jdbc;
+    private final BinStateStore binState;
+    private final HeatmapService heatmapService;
 
-    public HeatmapController(JdbcTemplate jdbc) {
-        this.jdbc = jdbc;
+    public HeatmapController(BinStateStore binState, HeatmapService heatmapService) {
+        this.binState = binState;
+        this.heatmapService = heatmapService;
     }
 
     /**
@@ -22,16 +33,115 @@ public class HeatmapController {
      * - fill_level >= 80 OR overflow = true
      *
      * GET /api/heatmap/bins
+     * GET /api/heatmap/bins?since=1768900000000123  -> {version, full, bins, removed}: bins that became or
+     *     stayed hot since then, and ids that cooled down or were deleted (full = true: everything again)
+     *
+     * Responses carry ETag "heatmap-<version>"; If-None-Match with the current one answers 304.
      */
     @GetMapping("/bins")
-    public List<Map<String, Object>> getHeatmapBins() {
+    public ResponseEntity<?> getHeatmapBins(@RequestParam(required = false) Long since, WebRequest request) {
+        if (request.checkNotModified(heatmapEtag(""))) return null;
+        if (since != null) {
+            return revalidate().body(hotBinsChangedSince(since));
+        }
+        return revalidate().body(toRows(hotBins()));
+    }
+
+    // ✅ Same feed, compact binary (Accept: application/vnd.smartwaste.bins, see BinFeedCodec)
+    @GetMapping(value = "/bins", produces = BinFeedCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getHeatmapBinsEncoded(WebRequest request) {
+        if (request.checkNotModified(heatmapEtag("-feed"))) return null;
+        List<BinStateStore.BinState> hot = hotBins();
+        BinFeedCodec feed = new BinFeedCodec(hot.size(), false);
+        for (BinStateStore.BinState b : hot) {
+            feed.add(b.id(), b.latitude(), b.longitude(), b.fillLevel(), b.overflow(), 0);
+        }
+        return revalidate().body(feed.encode());
+    }
+
+    private Map<String, Object> hotBinsChangedSince(long since) {
+        List<BinStateStore.BinState> hot = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        long version = binState.forEachChangedSince(since,
+                (id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+                    if (HeatmapService.isHot(fillLevel, overflow)) {
+                        hot.add(new BinStateStore.BinState(id, latitude, longitude, fillLevel, overflow, capacityLiters));
+                    } else {
+                        removed.add(id);
+                    }
+                },
+                removed::add);
+
+        boolean full = version < 0;
+        if (full) {
+            version = binState.version();
+            removed.clear();
+            hot.addAll(hotBins());
+        } else {
+            hot.sort(Comparator.comparingInt(BinStateStore.BinState::fillLevel).reversed());
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("version", version);
+        delta.put("full", full);
+        delta.put("bins", toRows(hot));
+        delta.put("removed", removed);
+        return delta;
+    }
+
+    private static List<Map<String, Object>> toRows(List<BinStateStore.BinState> hot) {
+        List<Map<String, Object>> bins = new ArrayList<>(hot.size());
+        for (BinStateStore.BinState b : hot) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("bin_id", b.id());
+            row.put("latitude", b.latitude());
+            row.put("longitude", b.longitude());
+            row.put("fill_level", b.fillLevel());
+            row.put("overflow", b.overflow());
+            bins.add(row);
+        }
+        return bins;
+    }
 
-        String sql =
-                "SELECT id AS bin_id, latitude, longitude, fill_level, overflow " +
-                "FROM bin " +
-                "WHERE fill_level >= 80 OR overflow = true " +
-                "ORDER BY fill_level DESC";
+    // version is read before the bins: a change that lands in between only makes the client read again
+    private String heatmapEtag(String representation) {
+        return "\"heatmap-" + binState.version() + representation + "\"";
+    }
 
-        return jdbc.queryForList(sql);
+    // browsers keep the body but ask (If-None-Match) before every reuse
+    private static ResponseEntity.BodyBuilder revalidate() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // yellow/red bins, fullest first
+    private List<BinStateStore.BinState> hotBins() {
+        List<BinStateStore.BinState> hot = new ArrayList<>();
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+            if (HeatmapService.isHot(fillLevel, overflow)) {
+                hot.add(new BinStateStore.BinState(id, latitude, longitude, fillLevel, overflow, capacityLiters));
+            }
+        });
+        hot.sort(Comparator.comparingInt(BinStateStore.BinState::fillLevel).reversed());
+        return hot;
+    }
+
+    /**
+     * ✅ Viewport heatmap, aggregated on a grid that matches the map zoom
+     * (cell ~32 px; rows are [lat, lng, count, maxFill, overflowCount])
+     *
+     * GET /api/heatmap/cells?south=6.80&west=79.80&north=7.00&east=80.00&zoom=13
+     */
+    @GetMapping("/cells")
+    public ResponseEntity<?> getHeatmapCells(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam int zoom
+    ) {
+        if (!Double.isFinite(south) || !Double.isFinite(west) || !Double.isFinite(north) || !Double.isFinite(east)) {
+            return ResponseEntity.badRequest().body("Bounding box must be finite numbers");
+        }
+        return ResponseEntity.ok(heatmapService.cells(zoom, south, west, north, east));
     }
 }
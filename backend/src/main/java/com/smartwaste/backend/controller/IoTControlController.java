@@ -1,6 +1,8 @@
 package com.smartwaste.backend.controller;
 
 import com.smartwaste.backend.iot.BinIoTSimulator;
+import com.smartwaste.backend.iot.SensorLoadGenerator;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,20 +13,53 @@ import java.util.Map;
 public class IoTControlController {
 
     private final BinIoTSimulator binIoTSimulator;
+    private final SensorLoadGenerator loadGenerator;
 
-    public IoTControlController(BinIoTSimulator binIoTSimulator) {
+    public IoTControlController(BinIoTSimulator binIoTSimulator, SensorLoadGenerator loadGenerator) {
         this.binIoTSimulator = binIoTSimulator;
+        this.loadGenerator = loadGenerator;
     }
 
-    // ✅ GET /api/iot/status
+    // ✅ GET /api/iot/status   (demo simulator + load run: sent / failed, achieved rate, latency percentiles)
     @GetMapping("/status")
     public ResponseEntity<?> status() {
         return ResponseEntity.ok(Map.of(
                 "iotEnabled", binIoTSimulator.isEnabled(),
-                "message", binIoTSimulator.isEnabled() ? "IoT Simulator is RUNNING" : "IoT Simulator is PAUSED"
+                "message", binIoTSimulator.isEnabled() ? "IoT Simulator is RUNNING" : "IoT Simulator is PAUSED",
+                "load", loadGenerator.status()
         ));
     }
 
+    // ✅ POST /api/iot/load/start?rate=20000&sensors=50000&model=diurnal&delivery=queue
+    // Optional: threads, batchSize, durationSeconds (0 = until stopped); unset ones use iot.load.* defaults
+    // model: linear | random | diurnal, delivery: direct | queue | http | bulk
+    @PostMapping("/load/start")
+    public ResponseEntity<?> startLoad(
+            @RequestParam(required = false) Integer rate,
+            @RequestParam(required = false) Integer sensors,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String delivery,
+            @RequestParam(required = false) Integer threads,
+            @RequestParam(required = false) Integer batchSize,
+            @RequestParam(required = false) Integer durationSeconds
+    ) {
+        try {
+            return ResponseEntity.ok(loadGenerator.start(rate, sensors, model, delivery, threads, batchSize,
+                    durationSeconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // ✅ POST /api/iot/load/stop
+    @PostMapping("/load/stop")
+    public ResponseEntity<?> stopLoad() {
+        loadGenerator.stop();
+        return ResponseEntity.ok(loadGenerator.status());
+    }
+
     // ✅ POST /api/iot/pause
     @PostMapping("/pause")
     public ResponseEntity<?> pause() {
@@ -15,4 +15,5 @@ public class BinDTO {
     private double longitude;
     private int fillLevel;
     private boolean overflow;
+    private Integer capacityLiters;
 }
@@ -0,0 +1,17 @@
+package com.smartwaste.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One sensor reading of a batch (POST /api/bins/fill/batch)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BinFillReading {
+    private Long binId;
+    private Integer level;       // 0 - 100
+    private Instant timestamp;   // when the sensor measured; null = time of the request
+}
@@ -15,4 +15,5 @@ public class DriverDTO {
     private String phoneNumber;
     private String vehicleNumber;
     private Boolean available; // include availability for frontend
+    private Integer capacityLiters;
 }
@@ -20,4 +20,7 @@ public class Bin {
     private int fillLevel;    // 0 - 100 %
 
     private boolean overflow; // true if bin is overflowing
+
+    @Column(name = "capacity_liters")
+    private Integer capacityLiters; // container volume (null -> routing default)
 }
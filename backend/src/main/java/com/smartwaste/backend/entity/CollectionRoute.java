@@ -23,8 +23,9 @@ public class CollectionRoute {
     @JoinColumn(name = "driver_id", nullable = false)
     private Driver driver;
 
-    // Link to bins
+    // Link to bins (kept in planned stop order)
     @ManyToMany
+    @OrderColumn(name = "stop_sequence")
     @JoinTable(
             name = "collection_route_bins",
             joinColumns = @JoinColumn(name = "route_id"),
@@ -36,4 +37,8 @@ public class CollectionRoute {
 
     @Column(nullable = false)
     private String status; // e.g., "PENDING", "COMPLETED"
+
+    // Bin-to-bin path length in stop order, stored when the route is written (see RouteDistanceService)
+    @Column(name = "distance_km")
+    private Double distanceKm;
 }
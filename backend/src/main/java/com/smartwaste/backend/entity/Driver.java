@@ -31,4 +31,8 @@ public class Driver {
     private Double latitude;
 
     private Double longitude;
+
+    // ✅ NEW: how much waste the truck can carry (null -> routing default)
+    @Column(name = "capacity_liters")
+    private Integer capacityLiters;
 }
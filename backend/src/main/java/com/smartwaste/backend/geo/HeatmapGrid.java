@@ -0,0 +1,155 @@
+package com.smartwaste.backend.geo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Multi-resolution grid of hot bins for map heatmaps: one level per map zoom in
+ * [{@link #MIN_ZOOM}, {@link #MAX_ZOOM}], each cell about {@code 256 / CELLS_PER_TILE} screen pixels wide at
+ * its zoom. Bins are added / removed incrementally; every level is updated on each change.
+ * <p>
+ * Per cell: bin count, overflow count, a fill histogram (so the max survives removals) and the sum of
+ * positions (cells are reported at the centroid of their bins). Not thread-safe.
+ */
+public final class HeatmapGrid {
+
+    public static final int MIN_ZOOM = 3;
+    public static final int MAX_ZOOM = 18;
+    public static final int CELLS_PER_TILE = 8;
+
+    private final int minFill;
+    private final Map<Long, Cell>[] levels;
+
+    /**
+     * @param minFill lowest fill level the grid holds (lower fills are counted in the lowest bucket)
+     */
+    @SuppressWarnings("unchecked")
+    public HeatmapGrid(int minFill) {
+        this.minFill = Math.max(0, Math.min(100, minFill));
+        this.levels = new Map[MAX_ZOOM - MIN_ZOOM + 1];
+        for (int i = 0; i < levels.length; i++) levels[i] = new HashMap<>();
+    }
+
+    public interface CellVisitor {
+        void visit(double lat, double lng, int count, int maxFill, int overflowCount);
+    }
+
+    private final class Cell {
+        int count;
+        int overflowCount;
+        double sumLat;
+        double sumLng;
+        final int[] fillCounts = new int[101 - minFill];
+
+        int maxFill() {
+            for (int b = fillCounts.length - 1; b >= 0; b--) {
+                if (fillCounts[b] > 0) return minFill + b;
+            }
+            return minFill;
+        }
+    }
+
+    public static int clampZoom(int zoom) {
+        return Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+    }
+
+    // cell edge in degrees (same in lat and lng) at a zoom level
+    public static double cellSizeDeg(int zoom) {
+        return 360.0 / ((long) CELLS_PER_TILE << clampZoom(zoom));
+    }
+
+    public int size(int zoom) {
+        return levels[clampZoom(zoom) - MIN_ZOOM].size();
+    }
+
+    public void add(double lat, double lng, int fill, boolean overflow) {
+        int bucket = bucket(fill);
+        for (int i = 0; i < levels.length; i++) {
+            double size = cellSizeDeg(MIN_ZOOM + i);
+            Cell c = levels[i].computeIfAbsent(key(cellX(lng, size), cellY(lat, size)), k -> new Cell());
+            c.count++;
+            if (overflow) c.overflowCount++;
+            c.sumLat += lat;
+            c.sumLng += lng;
+            c.fillCounts[bucket]++;
+        }
+    }
+
+    // must match a previous add exactly
+    public void remove(double lat, double lng, int fill, boolean overflow) {
+        int bucket = bucket(fill);
+        for (int i = 0; i < levels.length; i++) {
+            double size = cellSizeDeg(MIN_ZOOM + i);
+            long key = key(cellX(lng, size), cellY(lat, size));
+            Cell c = levels[i].get(key);
+            if (c == null) continue;
+            if (--c.count == 0) {
+                levels[i].remove(key);
+                continue;
+            }
+            if (overflow) c.overflowCount--;
+            c.sumLat -= lat;
+            c.sumLng -= lng;
+            c.fillCounts[bucket]--;
+        }
+    }
+
+    /**
+     * Visits the cells of a zoom level that intersect the box (west > east crosses the antimeridian).
+     */
+    public void query(int zoom, double south, double west, double north, double east, CellVisitor visitor) {
+        int level = clampZoom(zoom) - MIN_ZOOM;
+        double size = cellSizeDeg(zoom);
+        Map<Long, Cell> cells = levels[level];
+
+        int y0 = cellY(Math.max(-90, Math.min(south, north)), size);
+        int y1 = cellY(Math.min(90, Math.max(south, north)), size);
+        if (west > east) {
+            queryRange(cells, cellX(west, size), cellX(180, size), y0, y1, visitor);
+            queryRange(cells, cellX(-180, size), cellX(east, size), y0, y1, visitor);
+        } else {
+            queryRange(cells, cellX(Math.max(-180, west), size), cellX(Math.min(180, east), size), y0, y1, visitor);
+        }
+    }
+
+    private void queryRange(Map<Long, Cell> cells, int x0, int x1, int y0, int y1, CellVisitor visitor) {
+        long area = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (area <= cells.size()) {
+            // small viewport: look the cells up
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    Cell c = cells.get(key(x, y));
+                    if (c != null) visit(c, visitor);
+                }
+            }
+        } else {
+            // large viewport: scan the occupied cells
+            for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+                long k = e.getKey();
+                int x = (int) (k >> 32);
+                int y = (int) k;
+                if (x >= x0 && x <= x1 && y >= y0 && y <= y1) visit(e.getValue(), visitor);
+            }
+        }
+    }
+
+    private static void visit(Cell c, CellVisitor visitor) {
+        visitor.visit(c.sumLat / c.count, c.sumLng / c.count, c.count, c.maxFill(), c.overflowCount);
+    }
+
+    private int bucket(int fill) {
+        return Math.max(minFill, Math.min(100, fill)) - minFill;
+    }
+
+    private static int cellX(double lng, double size) {
+        return (int) Math.floor((lng + 180) / size);
+    }
+
+    private static int cellY(double lat, double size) {
+        return (int) Math.floor((lat + 90) / size);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
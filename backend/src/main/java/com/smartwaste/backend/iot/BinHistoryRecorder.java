@@ -1,41 +1,35 @@
 package com.smartwaste.backend.iot;
 
+import com.smartwaste.backend.service.BinStateStore;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class BinHistoryRecorder {
 
     private final JdbcTemplate jdbc;
+    private final BinStateStore binState;
 
-    public BinHistoryRecorder(JdbcTemplate jdbc) {
+    public BinHistoryRecorder(JdbcTemplate jdbc, BinStateStore binState) {
         this.jdbc = jdbc;
+        this.binState = binState;
     }
 
     // ✅ Option B: every 30 seconds
     @Scheduled(fixedRate = 30000)
     public void recordSnapshot() {
 
-        List<Map<String, Object>> bins = jdbc.queryForList(
-                "SELECT id, fill_level, overflow FROM bin"
+        // current state from memory (no bin table scan)
+        List<Object[]> batch = new ArrayList<>(binState.size());
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) ->
+                batch.add(new Object[]{id, fillLevel, overflow})
         );
 
-        if (bins.isEmpty()) return;
-
-        List<Object[]> batch = new ArrayList<>();
-
-        for (Map<String, Object> row : bins) {
-            Long binId = ((Number) row.get("id")).longValue();
-            int fillLevel = row.get("fill_level") == null ? 0 : ((Number) row.get("fill_level")).intValue();
-            boolean overflow = row.get("overflow") != null && (Boolean) row.get("overflow");
-
-            batch.add(new Object[]{binId, fillLevel, overflow});
-        }
+        if (batch.isEmpty()) return;
 
         jdbc.batchUpdate(
                 "INSERT INTO bin_fill_history (bin_id, fill_level, overflow, recorded_at) VALUES (?, ?, ?, NOW())",
@@ -1,25 +1,23 @@
 package com.smartwaste.backend.iot;
 
-import com.smartwaste.backend.entity.Bin;
-import com.smartwaste.backend.repository.BinRepository;
+import com.smartwaste.backend.service.BinStateStore;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class BinIoTSimulator {
 
-    private final BinRepository binRepository;
+    private final BinStateStore binState;
     private final Random random = new Random();
 
     // ✅ MAIN SWITCH (true = running, false = paused)
     private final AtomicBoolean enabled = new AtomicBoolean(true);
 
-    public BinIoTSimulator(BinRepository binRepository) {
-        this.binRepository = binRepository;
+    public BinIoTSimulator(BinStateStore binState) {
+        this.binState = binState;
     }
 
     // ✅ Pause IoT simulation
@@ -49,23 +47,31 @@ public class BinIoTSimulator {
             return;
         }
 
-        List<Bin> bins = binRepository.findAll();
-        if (bins.isEmpty()) return;
+        // in-memory state: no table scan; changes reach the table with the store's next flush
+        long[] ids = new long[binState.size()];
+        int[] fills = new int[ids.length];
+        int[] n = {0};
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+            if (n[0] == ids.length) return; // bins added since size() wait for the next cycle
+            ids[n[0]] = id;
+            fills[n[0]++] = fillLevel;
+        });
+        if (n[0] == 0) return;
 
         // Update up to 4 random bins each cycle
-        int updates = Math.min(4, bins.size());
+        int updates = Math.min(4, n[0]);
 
         for (int i = 0; i < updates; i++) {
-            Bin bin = bins.get(random.nextInt(bins.size()));
+            int pick = random.nextInt(n[0]);
+            long binId = ids[pick];
 
-            int current = bin.getFillLevel();
+            int current = fills[pick];
 
             // ✅ 20% chance: simulate a truck emptying the bin
             if (random.nextInt(100) < 20) {
                 int emptiedTo = random.nextInt(21); // 0 - 20
-                bin.setFillLevel(emptiedTo);
-                bin.setOverflow(false);
-                binRepository.save(bin);
+                binState.updateFill(binId, emptiedTo, false);
+                fills[pick] = emptiedTo;
                 continue;
             }
 
@@ -73,10 +79,8 @@ public class BinIoTSimulator {
             int increase = 3 + random.nextInt(15); // +3 to +17
             int newLevel = Math.min(100, current + increase);
 
-            bin.setFillLevel(newLevel);
-            bin.setOverflow(newLevel >= 95);
-
-            binRepository.save(bin);
+            binState.updateFill(binId, newLevel, newLevel >= 95);
+            fills[pick] = newLevel;
         }
 
         System.out.println("✅ IoT Simulator updated some bins (fill + occasional empty)...");
@@ -0,0 +1,423 @@
+package com.smartwaste.backend.iot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartwaste.backend.dto.BinFillReading;
+import com.smartwaste.backend.service.BinIngestPipeline;
+import com.smartwaste.backend.service.BinIngestService;
+import com.smartwaste.backend.service.BinStateStore;
+import com.smartwaste.backend.util.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for capacity tests: {@code sensors} virtual sensors, each bound to a bin (round-robin over
+ * the bins in {@link BinStateStore}), report fill levels from a {@link FillModel} at a total target rate,
+ * delivered through one of the ingest paths ({@link Delivery}).
+ * <p>
+ * {@code threads} worker threads each own a slice of the sensors and a share of the rate; a worker sends
+ * what is due in calls of up to {@code batchSize} readings and sleeps when it is ahead. A worker more than
+ * one second behind drops the backlog (counted as skipped) instead of bursting, so the achieved rate shows
+ * what the path sustains. Latency is measured per delivery call.
+ * <p>
+ * Separate from the 5-second demo cycle of {@link BinIoTSimulator}; one load run at a time.
+ */
+@Component
+public class SensorLoadGenerator {
+
+    public enum FillModel {
+        LINEAR,       // steady per-sensor fill rate, emptied some time after it is full
+        RANDOM,       // jumps of +3..17, 20% chance of being emptied (the demo simulator's behaviour)
+        DIURNAL;      // fill rate follows a day curve (fast by day, slow at night) of day-seconds
+
+        static FillModel parse(String value) {
+            return parseEnum(FillModel.class, value, "model");
+        }
+    }
+
+    public enum Delivery {
+        DIRECT,       // BinIngestService.ingest in process (synchronous, batches)
+        QUEUE,        // BinIngestPipeline.submit in process (queued, batches)
+        HTTP,         // PATCH /api/bins/{id}/fill, one reading per request
+        BULK;         // POST /api/bins/fill/batch, batches
+
+        static Delivery parse(String value) {
+            return parseEnum(Delivery.class, value, "delivery");
+        }
+    }
+
+    public record LoadConfig(int ratePerSecond, int sensors, FillModel model, Delivery delivery, int threads,
+                             int batchSize, int durationSeconds) {
+    }
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final BinStateStore binState;
+    private final BinIngestService ingestService;
+    private final BinIngestPipeline ingestPipeline;
+    private final ObjectMapper objectMapper;
+    private final HttpClient http;
+    private final String baseUrl;
+    private final LoadConfig defaults;
+    private final double daySeconds;
+
+    private volatile Run current;
+
+    public SensorLoadGenerator(
+            BinStateStore binState,
+            BinIngestService ingestService,
+            BinIngestPipeline ingestPipeline,
+            ObjectMapper objectMapper,
+            @Value("${iot.load.rate:1000}") int rate,
+            @Value("${iot.load.sensors:10000}") int sensors,
+            @Value("${iot.load.model:random}") String model,
+            @Value("${iot.load.delivery:queue}") String delivery,
+            @Value("${iot.load.threads:4}") int threads,
+            @Value("${iot.load.batch-size:500}") int batchSize,
+            @Value("${iot.load.duration-seconds:60}") int durationSeconds,
+            @Value("${iot.load.day-seconds:60}") double daySeconds,
+            @Value("${iot.load.base-url:http://localhost:${server.port:8080}}") String baseUrl
+    ) {
+        this.binState = binState;
+        this.ingestService = ingestService;
+        this.ingestPipeline = ingestPipeline;
+        this.objectMapper = objectMapper;
+        this.defaults = new LoadConfig(rate, sensors, FillModel.parse(model), Delivery.parse(delivery), threads,
+                batchSize, durationSeconds);
+        this.daySeconds = Math.max(1, daySeconds);
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Starts a load run; null arguments take the {@code iot.load.*} defaults.
+     *
+     * @throws IllegalArgumentException for an out-of-range setting or when there are no bins
+     * @throws IllegalStateException    when a run is already going
+     */
+    public synchronized Map<String, Object> start(Integer rate, Integer sensors, String model, String delivery,
+                                                  Integer threads, Integer batchSize, Integer durationSeconds) {
+        if (current != null && current.isActive()) {
+            throw new IllegalStateException("A load run is already going; stop it first");
+        }
+
+        LoadConfig config = new LoadConfig(
+                rate != null ? rate : defaults.ratePerSecond(),
+                sensors != null ? sensors : defaults.sensors(),
+                model != null ? FillModel.parse(model) : defaults.model(),
+                delivery != null ? Delivery.parse(delivery) : defaults.delivery(),
+                threads != null ? threads : defaults.threads(),
+                batchSize != null ? batchSize : defaults.batchSize(),
+                durationSeconds != null ? durationSeconds : defaults.durationSeconds());
+        if (config.ratePerSecond() < 1) throw new IllegalArgumentException("rate must be at least 1");
+        if (config.sensors() < 1) throw new IllegalArgumentException("sensors must be at least 1");
+        if (config.threads() < 1 || config.threads() > 256) throw new IllegalArgumentException("threads must be 1-256");
+        if (config.batchSize() < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+        if (config.durationSeconds() < 0) throw new IllegalArgumentException("durationSeconds must be 0 (until stopped) or more");
+
+        long[] bins = binIds();
+        if (bins.length == 0) throw new IllegalArgumentException("No bins to simulate sensors for");
+
+        Run run = new Run(config, bins);
+        current = run;
+        run.start();
+        System.out.println("🚀 IoT load run started: " + config);
+        return status();
+    }
+
+    // ✅ Stop the running load (no-op when none)
+    @PreDestroy
+    public synchronized void stop() {
+        Run run = current;
+        if (run != null) run.stop();
+    }
+
+    public Map<String, Object> status() {
+        Run run = current;
+        if (run == null) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("running", false);
+            s.put("defaults", defaults);
+            return s;
+        }
+        return run.status();
+    }
+
+    private long[] binIds() {
+        long[] ids = new long[binState.size()];
+        int[] n = {0};
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+            if (n[0] < ids.length) ids[n[0]++] = id;
+        });
+        return Arrays.copyOf(ids, n[0]);
+    }
+
+    private final class Run {
+        final LoadConfig config;
+        final long[] bins;
+        final ExecutorService workers;
+        final AtomicInteger activeWorkers = new AtomicInteger();
+        volatile boolean stopping;
+
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder calls = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        volatile String lastError;
+
+        Instant startedAt;
+        long startNanos;
+        volatile long endNanos;
+
+        Run(LoadConfig config, long[] bins) {
+            this.config = config;
+            this.bins = bins;
+            AtomicInteger n = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(config.threads(), r -> {
+                Thread t = new Thread(r, "iot-load-" + n.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        void start() {
+            startedAt = Instant.now();
+            startNanos = System.nanoTime();
+            long deadline = config.durationSeconds() == 0 ? Long.MAX_VALUE
+                    : startNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+            double share = (double) config.ratePerSecond() / config.threads();
+            activeWorkers.set(config.threads());
+            for (int w = 0; w < config.threads(); w++) {
+                workers.execute(new Worker(this, w, share, deadline));
+            }
+            workers.shutdown();
+        }
+
+        boolean isActive() {
+            return activeWorkers.get() > 0;
+        }
+
+        void stop() {
+            stopping = true;
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void workerDone() {
+            if (activeWorkers.decrementAndGet() == 0) {
+                endNanos = System.nanoTime();
+                System.out.println("🏁 IoT load run finished: " + sent.sum() + " reading(s) sent, "
+                        + failed.sum() + " failed, " + skipped.sum() + " skipped");
+            }
+        }
+
+        Map<String, Object> status() {
+            boolean active = isActive();
+            long now = active || endNanos == 0 ? System.nanoTime() : endNanos;
+            double elapsed = Math.max(1e-9, (now - startNanos) / 1e9);
+            long total = sent.sum();
+
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("running", active);
+            s.put("config", config);
+            s.put("bins", bins.length);
+            s.put("startedAt", startedAt);
+            s.put("elapsedSeconds", Math.round(elapsed * 10) / 10.0);
+            s.put("sent", total);
+            s.put("failed", failed.sum());
+            s.put("skipped", skipped.sum());
+            s.put("deliveryCalls", calls.sum());
+            s.put("targetPerSecond", config.ratePerSecond());
+            s.put("achievedPerSecond", Math.round(total / elapsed));
+            s.put("latencyP50Ms", latency.percentileMs(0.50));
+            s.put("latencyP95Ms", latency.percentileMs(0.95));
+            s.put("latencyP99Ms", latency.percentileMs(0.99));
+            s.put("latencyMaxMs", latency.maxMs());
+            if (lastError != null) s.put("lastError", lastError);
+            return s;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final Run run;
+        final double ratePerSecond;
+        final long deadline;
+        final int batchSize;
+        final SplittableRandom random;
+
+        // this worker's sensors: sensor i of the run when i % threads == worker
+        final long[] binIds;
+        final double[] level;
+        final double[] fillPerReading;    // LINEAR / DIURNAL base rate, % per reading
+        int next;
+
+        Worker(Run run, int worker, double ratePerSecond, long deadline) {
+            this.run = run;
+            this.ratePerSecond = ratePerSecond;
+            this.deadline = deadline;
+            this.batchSize = run.config.delivery() == Delivery.HTTP ? 1 : run.config.batchSize();
+            this.random = new SplittableRandom(31L * worker + run.startNanos);
+
+            int threads = run.config.threads();
+            int count = Math.max(0, (run.config.sensors() - worker + threads - 1) / threads);
+            this.binIds = new long[count];
+            this.level = new double[count];
+            this.fillPerReading = new double[count];
+            for (int k = 0; k < count; k++) {
+                binIds[k] = run.bins[(worker + k * threads) % run.bins.length];
+                level[k] = random.nextInt(60);
+                fillPerReading[k] = 0.5 + random.nextDouble() * 2.5;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (binIds.length > 0) loop();
+            } finally {
+                run.workerDone();
+            }
+        }
+
+        private void loop() {
+            List<BinFillReading> chunk = new ArrayList<>(batchSize);
+            long start = System.nanoTime();
+            long done = 0;
+            long maxBacklog = Math.max(1, (long) ratePerSecond);
+
+            while (!run.stopping && !Thread.currentThread().isInterrupted()) {
+                long now = System.nanoTime();
+                if (now >= deadline) return;
+
+                long due = (long) (ratePerSecond * ((now - start) / 1e9));
+                if (due - done > maxBacklog) {
+                    run.skipped.add(due - done - maxBacklog);
+                    done = due - maxBacklog;
+                }
+                if (done >= due) {
+                    long wake = start + (long) ((done + 1) / ratePerSecond * 1e9);
+                    sleepNanos(Math.min(TICK_NANOS, Math.max(0, wake - now)));
+                    continue;
+                }
+
+                int n = (int) Math.min(batchSize, due - done);
+                Instant measuredAt = Instant.now();
+                chunk.clear();
+                for (int k = 0; k < n; k++) chunk.add(nextReading(measuredAt));
+
+                long t0 = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = deliver(chunk);
+                } catch (Exception e) {
+                    ok = false;
+                    run.lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                }
+                run.latency.record((System.nanoTime() - t0) / 1000);
+                run.calls.increment();
+                (ok ? run.sent : run.failed).add(n);
+                done += n;
+            }
+        }
+
+        private BinFillReading nextReading(Instant measuredAt) {
+            int k = next;
+            next = (next + 1) % binIds.length;
+
+            double l = level[k];
+            switch (run.config.model()) {
+                case LINEAR -> l = l >= 100 && random.nextInt(10) == 0 ? random.nextInt(6) : l + fillPerReading[k];
+                case RANDOM -> l = random.nextInt(100) < 20 ? random.nextInt(21) : l + 3 + random.nextInt(15);
+                case DIURNAL -> {
+                    double dayPhase = (System.nanoTime() - run.startNanos) / 1e9 / daySeconds * 2 * Math.PI;
+                    double daylight = Math.max(0, Math.sin(dayPhase));
+                    l = l >= 100 && random.nextInt(10) == 0 ? random.nextInt(6)
+                            : l + fillPerReading[k] * (0.2 + 1.6 * daylight);
+                }
+            }
+            level[k] = Math.min(100, l);
+            return new BinFillReading(binIds[k], (int) level[k], measuredAt);
+        }
+
+        private boolean deliver(List<BinFillReading> chunk) throws IOException, InterruptedException {
+            switch (run.config.delivery()) {
+                case DIRECT -> {
+                    ingestService.ingest(chunk);
+                    return true;
+                }
+                case QUEUE -> {
+                    return ingestPipeline.submit(chunk);
+                }
+                case HTTP -> {
+                    BinFillReading r = chunk.get(0);
+                    return send(HttpRequest.newBuilder(URI.create(
+                                    baseUrl + "/api/bins/" + r.getBinId() + "/fill?level=" + r.getLevel()))
+                            .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+                }
+                default -> {
+                    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/bins/fill/batch"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(json(chunk))));
+                }
+            }
+        }
+
+        private boolean send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            HttpResponse<Void> response = http.send(request.timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                run.lastError = "HTTP " + response.statusCode() + " from " + response.uri().getPath();
+                return false;
+            }
+            return true;
+        }
+
+        private byte[] json(List<BinFillReading> chunk) {
+            try {
+                return objectMapper.writeValueAsBytes(chunk);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(Math.max(nanos, 100_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unknown " + name + ": " + value + " (use one of "
+                    + Arrays.toString(type.getEnumConstants()).toLowerCase(Locale.ROOT) + ")");
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.smartwaste.backend.iot;
+
+import com.smartwaste.backend.service.BinIngestPipeline;
+import com.smartwaste.backend.util.SensorFrame;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional raw TCP port for bin sensors ({@code sensor-tcp.enabled}): each connection streams
+ * {@link SensorFrame}s, which go into the same {@link BinIngestPipeline} as {@code POST /api/bins/fill/queue}
+ * (latest reading per bin wins, bins on an active route are left alone).
+ * <p>
+ * One acceptor thread hands connections round-robin to {@code sensor-tcp.io-threads} selector threads.
+ * Each selector thread reads into one shared direct buffer and decodes the frames in place; a connection
+ * only keeps the few bytes of a frame split across reads, so idle connections cost next to nothing.
+ * <p>
+ * Sensors get no reply. Frames with a bad level or bin id are skipped; a frame without the magic byte
+ * closes the connection (wrong protocol or lost framing). When the ingest queue is full the frames of
+ * that read are dropped (sensors report again on their next cycle). Connections silent for
+ * {@code sensor-tcp.idle-timeout-ms} are closed.
+ */
+@Component
+public class SensorTcpListener {
+
+    // multiple of the frame size
+    private static final int READ_BUFFER = 4096 * SensorFrame.SIZE;
+
+    private final BinIngestPipeline ingestPipeline;
+    private final boolean enabled;
+    private final int port;
+    private final int ioThreads;
+    private final int maxConnections;
+    private final long idleTimeoutMs;
+
+    private volatile boolean running;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private IoLoop[] loops = new IoLoop[0];
+    private int nextLoop;
+
+    // stats
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder refusedConnections = new LongAdder();
+    private final LongAdder idleClosed = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder invalidFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+
+    public SensorTcpListener(
+            BinIngestPipeline ingestPipeline,
+            @Value("${sensor-tcp.enabled:false}") boolean enabled,
+            @Value("${sensor-tcp.port:9100}") int port,
+            @Value("${sensor-tcp.io-threads:2}") int ioThreads,
+            @Value("${sensor-tcp.max-connections:50000}") int maxConnections,
+            @Value("${sensor-tcp.idle-timeout-ms:600000}") long idleTimeoutMs
+    ) {
+        this.ingestPipeline = ingestPipeline;
+        this.enabled = enabled;
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        this.maxConnections = Math.max(1, maxConnections);
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (!enabled || running) return;
+
+        loops = new IoLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IoLoop(Selector.open());
+            Thread t = new Thread(loops[i], "sensor-tcp-io-" + i);
+            t.setDaemon(true);
+            loops[i].thread = t;
+        }
+
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress(port), 1024);
+
+        running = true;
+        for (IoLoop loop : loops) loop.thread.start();
+        acceptor = new Thread(this::acceptLoop, "sensor-tcp-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("📡 Sensor TCP listener on port " + port + " (" + ioThreads + " I/O thread(s))");
+    }
+
+    // ✅ Shutdown: close the port and every connection (before the pipeline drains its queue)
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+            try {
+                loop.thread.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int port() {
+        return server == null ? port : server.socket().getLocalPort();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("enabled", enabled);
+        s.put("port", port());
+        s.put("openConnections", openConnections.get());
+        s.put("acceptedConnections", acceptedConnections.sum());
+        s.put("refusedConnections", refusedConnections.sum());
+        s.put("idleClosed", idleClosed.sum());
+        s.put("protocolErrors", protocolErrors.sum());
+        s.put("frames", frames.sum());
+        s.put("invalidFrames", invalidFrames.sum());
+        s.put("droppedFrames", droppedFrames.sum());
+        return s;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            SocketChannel ch;
+            try {
+                ch = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // e.g. out of file descriptors: back off instead of spinning
+                System.err.println("⚠️ Sensor TCP accept failed: " + e.getMessage());
+                sleepQuietly(100);
+                continue;
+            }
+
+            if (openConnections.get() >= maxConnections) {
+                refusedConnections.increment();
+                closeQuietly(ch);
+                continue;
+            }
+            try {
+                ch.configureBlocking(false);
+            } catch (IOException e) {
+                closeQuietly(ch);
+                continue;
+            }
+            openConnections.incrementAndGet();
+            acceptedConnections.increment();
+            IoLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.pending.add(ch);
+            loop.selector.wakeup();
+        }
+    }
+
+    // per connection: only the bytes of a frame split across reads
+    private static final class Connection {
+        final byte[] partial = new byte[SensorFrame.SIZE];
+        int partialLength;
+        long lastReadAt;
+    }
+
+    private final class IoLoop implements Runnable {
+        final Selector selector;
+        final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        Thread thread;
+
+        final ByteBuffer buf = ByteBuffer.allocateDirect(READ_BUFFER);
+        final long[] ids = new long[READ_BUFFER / SensorFrame.SIZE];
+        final int[] levels = new int[ids.length];
+        final long[] measuredAt = new long[ids.length];
+        long lastSweep = System.currentTimeMillis();
+
+        IoLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select(1000);
+                    register();
+
+                    long now = System.currentTimeMillis();
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (key.isValid() && key.isReadable()) read(key, now);
+                    }
+
+                    if (idleTimeoutMs > 0 && now - lastSweep >= Math.min(idleTimeoutMs, 1000)) {
+                        closeIdle(now);
+                        lastSweep = now;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️ Sensor TCP I/O loop stopped: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) close(key);
+                SocketChannel ch;
+                while ((ch = pending.poll()) != null) {
+                    closeQuietly(ch);
+                    openConnections.decrementAndGet();
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        private void register() {
+            SocketChannel ch;
+            while ((ch = pending.poll()) != null) {
+                Connection c = new Connection();
+                c.lastReadAt = System.currentTimeMillis();
+                try {
+                    ch.register(selector, SelectionKey.OP_READ, c);
+                } catch (IOException e) {
+                    closeQuietly(ch);
+                    openConnections.decrementAndGet();
+                }
+            }
+        }
+
+        private void read(SelectionKey key, long now) {
+            SocketChannel ch = (SocketChannel) key.channel();
+            Connection c = (Connection) key.attachment();
+
+            buf.clear();
+            if (c.partialLength > 0) buf.put(c.partial, 0, c.partialLength);
+            int r;
+            try {
+                r = ch.read(buf);
+            } catch (IOException e) {
+                close(key);
+                return;
+            }
+            if (r < 0) {
+                close(key);
+                return;
+            }
+            c.lastReadAt = now;
+            buf.flip();
+
+            int end = buf.limit() - buf.limit() % SensorFrame.SIZE;
+            int n = 0;
+            for (int pos = 0; pos < end; pos += SensorFrame.SIZE) {
+                if (!SensorFrame.hasMagic(buf, pos)) {
+                    protocolErrors.increment();
+                    close(key);
+                    return;
+                }
+                long binId = SensorFrame.binId(buf, pos);
+                int level = SensorFrame.level(buf, pos);
+                if (binId == 0 || !BinIngestPipeline.isValidLevel(level)) {
+                    invalidFrames.increment();
+                    continue;
+                }
+                ids[n] = binId;
+                levels[n] = level;
+                measuredAt[n] = (SensorFrame.flags(buf, pos) & SensorFrame.FLAG_MEASURED_AT) != 0
+                        ? SensorFrame.measuredAt(buf, pos) : now;
+                n++;
+            }
+            frames.add(end / SensorFrame.SIZE);
+
+            c.partialLength = buf.limit() - end;
+            if (c.partialLength > 0) buf.get(end, c.partial, 0, c.partialLength);
+
+            if (n > 0 && !ingestPipeline.submit(ids, levels, measuredAt, n)) droppedFrames.add(n);
+        }
+
+        private void closeIdle(long now) {
+            for (SelectionKey key : selector.keys()) {
+                Connection c = (Connection) key.attachment();
+                if (key.isValid() && c != null && now - c.lastReadAt > idleTimeoutMs) {
+                    idleClosed.increment();
+                    close(key);
+                }
+            }
+        }
+
+        private void close(SelectionKey key) {
+            if (!key.isValid()) return;     // already closed in this round
+            key.cancel();
+            closeQuietly(key.channel());
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(Channel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
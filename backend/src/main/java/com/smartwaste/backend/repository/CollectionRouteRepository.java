@@ -17,12 +17,4 @@ public interface CollectionRouteRepository extends JpaRepository<CollectionRoute
         WHERE r.routeDate = :date AND LOWER(r.status) IN ('assigned','in_progress')
     """)
     List<CollectionRoute> findActiveRoutesByDate(@Param("date") LocalDate date);
-
-    @Query("""
-        SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END
-        FROM CollectionRoute r
-        JOIN r.bins b
-        WHERE b.id = :binId AND LOWER(r.status) IN ('assigned','in_progress')
-    """)
-    boolean existsActiveRouteContainingBin(@Param("binId") Long binId);
 }
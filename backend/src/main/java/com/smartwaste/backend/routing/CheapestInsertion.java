@@ -0,0 +1,109 @@
+package com.smartwaste.backend.routing;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cheapest insertion of single stops into existing open routes.
+ * <p>
+ * A route is a node sequence that starts at a fixed anchor (the truck). Its first {@code lockedPrefix}
+ * nodes stay in front of anything new, which is how already collected stops are protected: a new stop
+ * can only go into a gap behind them. The cost of placing node x between p and q is
+ * {@code d(p,x) + d(x,q) - d(p,q)}, or just {@code d(p,x)} at the open end.
+ */
+public final class CheapestInsertion {
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * One live route. Mutated in place by {@link #insert}.
+     */
+    public static final class Route {
+        private int[] nodes;
+        private int size;
+        private final int lockedPrefix;
+        private final double capacity;
+        private final int maxStops;
+        private double load;
+        private boolean changed;
+
+        /**
+         * @param nodes        anchor first, then the stops in driving order
+         * @param lockedPrefix leading nodes (at least the anchor) that new stops must come after
+         * @param load         current load of the route (same unit as {@code capacity})
+         * @param capacity     maximum load of the route
+         * @param maxStops     maximum number of stops (the anchor does not count)
+         */
+        public Route(int[] nodes, int lockedPrefix, double load, double capacity, int maxStops) {
+            if (nodes.length == 0) throw new IllegalArgumentException("Route needs an anchor node");
+            this.nodes = Arrays.copyOf(nodes, nodes.length + 4);
+            this.size = nodes.length;
+            this.lockedPrefix = Math.max(1, Math.min(lockedPrefix, nodes.length));
+            this.load = load;
+            this.capacity = capacity;
+            this.maxStops = maxStops;
+        }
+
+        public int[] nodes() {
+            return Arrays.copyOf(nodes, size);
+        }
+
+        public boolean changed() {
+            return changed;
+        }
+
+        public double load() {
+            return load;
+        }
+
+        boolean fits(double extraLoad) {
+            return size - 1 < maxStops && load + extraLoad <= capacity + EPS;
+        }
+
+        void insertAt(int position, int node, double extraLoad) {
+            if (size == nodes.length) nodes = Arrays.copyOf(nodes, size * 2);
+            System.arraycopy(nodes, position, nodes, position + 1, size - position);
+            nodes[position] = node;
+            size++;
+            load += extraLoad;
+            changed = true;
+        }
+    }
+
+    private CheapestInsertion() {
+    }
+
+    /**
+     * Inserts {@code node} where it adds the least distance over all routes that can take it.
+     *
+     * @return the added distance, or NaN if no route has room (nothing is changed then)
+     */
+    public static double insert(List<Route> routes, int node, double nodeLoad, NodeDistance dist) {
+        Route bestRoute = null;
+        int bestPosition = -1;
+        double bestCost = Double.MAX_VALUE;
+
+        for (Route r : routes) {
+            if (!r.fits(nodeLoad)) continue;
+
+            // gaps (nodes[p-1], nodes[p]) behind the locked prefix, plus the open end (p == size)
+            for (int p = r.lockedPrefix; p <= r.size; p++) {
+                int prev = r.nodes[p - 1];
+                double cost = dist.between(prev, node);
+                if (p < r.size) {
+                    int next = r.nodes[p];
+                    cost += dist.between(node, next) - dist.between(prev, next);
+                }
+                if (cost < bestCost - EPS) {
+                    bestCost = cost;
+                    bestRoute = r;
+                    bestPosition = p;
+                }
+            }
+        }
+
+        if (bestRoute == null) return Double.NaN;
+        bestRoute.insertAt(bestPosition, node, nodeLoad);
+        return bestCost;
+    }
+}
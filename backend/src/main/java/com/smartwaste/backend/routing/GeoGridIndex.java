@@ -0,0 +1,316 @@
+package com.smartwaste.backend.routing;
+
+import com.smartwaste.backend.geo.GeoMath;
+
+import java.util.Arrays;
+
+/**
+ * Uniform lat/lng grid over a fixed bounding box that supports moving and removing points.
+ * <p>
+ * Points are identified by a dense int id (0..capacity-1). {@link #nearest(double, double)} is exact:
+ * it returns the point with the smallest haversine distance, and on equal distance the smallest id,
+ * which is exactly what a linear scan over the ids in order would return.
+ */
+public class GeoGridIndex {
+
+    private final double minLat;
+    private final double minLng;
+    private final double cellLat;
+    private final double cellLng;
+    private final int rows;
+    private final int cols;
+
+    // lower bound of cos(lat) anywhere inside the box (used for longitude distance bounds)
+    private final double cosLatMin;
+
+    private final int[][] cells;
+    private final int[] cellCount;
+
+    private final double[] lat;
+    private final double[] lng;
+    private final double[] cosLat;  // cos(lat) per point, so a distance needs no extra cos() calls
+    private final int[] cellOf;     // -1 when the id is not in the index
+    private final int[] slotInCell;
+
+    private int size;
+
+    public GeoGridIndex(int capacity, double minLat, double maxLat, double minLng, double maxLng) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must be >= 0");
+        if (!(minLat <= maxLat) || !(minLng <= maxLng)) {
+            throw new IllegalArgumentException("Invalid bounds");
+        }
+
+        this.minLat = minLat;
+        this.minLng = minLng;
+
+        double latSpan = Math.max(maxLat - minLat, 1e-9);
+        double lngSpan = Math.max(maxLng - minLng, 1e-9);
+
+        double maxAbsLat = Math.min(90, Math.max(Math.abs(minLat), Math.abs(maxLat)));
+        this.cosLatMin = Math.max(0, Math.cos(Math.toRadians(maxAbsLat)));
+
+        int targetCells = Math.max(1, capacity);
+        if (lngSpan > 180) {
+            // crosses (or nearly crosses) the antimeridian: longitude bounds are meaningless, use one column
+            this.rows = Math.max(1, Math.min(targetCells, 1024));
+            this.cols = 1;
+            this.cellLng = Double.POSITIVE_INFINITY;
+        } else {
+            // keep cells roughly square on the ground
+            double widthM = lngSpan * Math.max(cosLatMin, 1e-6);
+            double aspect = latSpan / widthM;
+            int r = (int) Math.round(Math.sqrt(targetCells * aspect));
+            r = Math.max(1, Math.min(r, targetCells));
+            int c = Math.max(1, targetCells / r);
+            this.rows = r;
+            this.cols = c;
+            this.cellLng = lngSpan / c;
+        }
+        this.cellLat = latSpan / rows;
+
+        this.cells = new int[rows * cols][];
+        this.cellCount = new int[rows * cols];
+
+        this.lat = new double[capacity];
+        this.lng = new double[capacity];
+        this.cosLat = new double[capacity];
+        this.cellOf = new int[capacity];
+        this.slotInCell = new int[capacity];
+        Arrays.fill(cellOf, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return cellOf[id] >= 0;
+    }
+
+    public void insert(int id, double pointLat, double pointLng) {
+        if (cellOf[id] >= 0) throw new IllegalStateException("Point already indexed: " + id);
+        lat[id] = pointLat;
+        lng[id] = pointLng;
+        cosLat[id] = GeoMath.cosLat(pointLat);
+        addToCell(id, cellFor(pointLat, pointLng));
+        size++;
+    }
+
+    public void move(int id, double pointLat, double pointLng) {
+        int from = cellOf[id];
+        if (from < 0) throw new IllegalStateException("Point not indexed: " + id);
+
+        lat[id] = pointLat;
+        lng[id] = pointLng;
+        cosLat[id] = GeoMath.cosLat(pointLat);
+
+        int to = cellFor(pointLat, pointLng);
+        if (to != from) {
+            removeFromCell(id, from);
+            addToCell(id, to);
+        }
+    }
+
+    public void remove(int id) {
+        int from = cellOf[id];
+        if (from < 0) return;
+        removeFromCell(id, from);
+        size--;
+    }
+
+    /**
+     * Returns the id of the nearest indexed point (ties -> smallest id), or -1 if the index is empty.
+     */
+    public int nearest(double qLat, double qLng) {
+        if (size == 0) return -1;
+
+        int qr = clamp((int) Math.floor((qLat - minLat) / cellLat), rows);
+        int qc = cols == 1 ? 0 : clamp((int) Math.floor((qLng - minLng) / cellLng), cols);
+        double cosQ = GeoMath.cosLat(qLat);
+
+        int best = -1;
+        double bestDist = Double.MAX_VALUE;
+
+        int maxRing = Math.max(Math.max(qr, rows - 1 - qr), Math.max(qc, cols - 1 - qc));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0 && best >= 0) {
+                double bound = ringLowerBound(qLat, qLng, cosQ, qr, qc, ring);
+                // small safety margin so rounding can never hide an equal-distance candidate
+                if (bound * (1 - 1e-12) - 1e-9 > bestDist) break;
+            }
+
+            int r0 = qr - ring, r1 = qr + ring;
+            int c0 = qc - ring, c1 = qc + ring;
+
+            for (int r = Math.max(0, r0); r <= Math.min(rows - 1, r1); r++) {
+                boolean edgeRow = (r == r0 || r == r1);
+                int step = edgeRow ? 1 : Math.max(1, c1 - c0);
+                for (int c = c0; c <= c1; c += step) {
+                    if (c < 0 || c >= cols) continue;
+
+                    int cell = r * cols + c;
+                    int[] members = cells[cell];
+                    int n = cellCount[cell];
+                    for (int k = 0; k < n; k++) {
+                        int id = members[k];
+                        double d = GeoMath.haversine(lat[id], lng[id], cosLat[id], qLat, qLng, cosQ);
+                        if (d < bestDist || (d == bestDist && id < best)) {
+                            bestDist = d;
+                            best = id;
+                        }
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Writes the k nearest indexed points (excluding {@code exclude}, pass -1 for none) into
+     * {@code outIds}/{@code outDist}, closest first, and returns how many were found.
+     */
+    public int kNearest(double qLat, double qLng, int k, int exclude, int[] outIds, double[] outDist) {
+        if (k <= 0 || size == 0) return 0;
+
+        int qr = clamp((int) Math.floor((qLat - minLat) / cellLat), rows);
+        int qc = cols == 1 ? 0 : clamp((int) Math.floor((qLng - minLng) / cellLng), cols);
+        double cosQ = GeoMath.cosLat(qLat);
+
+        int found = 0;
+        int maxRing = Math.max(Math.max(qr, rows - 1 - qr), Math.max(qc, cols - 1 - qc));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0 && found == k) {
+                double bound = ringLowerBound(qLat, qLng, cosQ, qr, qc, ring);
+                if (bound * (1 - 1e-12) - 1e-9 > outDist[k - 1]) break;
+            }
+
+            int r0 = qr - ring, r1 = qr + ring;
+            int c0 = qc - ring, c1 = qc + ring;
+
+            for (int r = Math.max(0, r0); r <= Math.min(rows - 1, r1); r++) {
+                boolean edgeRow = (r == r0 || r == r1);
+                int step = edgeRow ? 1 : Math.max(1, c1 - c0);
+                for (int c = c0; c <= c1; c += step) {
+                    if (c < 0 || c >= cols) continue;
+
+                    int cell = r * cols + c;
+                    int[] members = cells[cell];
+                    int n = cellCount[cell];
+                    for (int m = 0; m < n; m++) {
+                        int id = members[m];
+                        if (id == exclude) continue;
+
+                        double d = GeoMath.haversine(lat[id], lng[id], cosLat[id], qLat, qLng, cosQ);
+                        if (found == k && !(d < outDist[k - 1] || (d == outDist[k - 1] && id < outIds[k - 1]))) {
+                            continue;
+                        }
+
+                        // insertion into the sorted buffer (ties -> smaller id first)
+                        int at = found == k ? k - 1 : found++;
+                        while (at > 0 && (outDist[at - 1] > d || (outDist[at - 1] == d && outIds[at - 1] > id))) {
+                            outDist[at] = outDist[at - 1];
+                            outIds[at] = outIds[at - 1];
+                            at--;
+                        }
+                        outDist[at] = d;
+                        outIds[at] = id;
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    // Minimum possible distance from the query to any point outside the (2*ring-1)^2 block around its cell.
+    private double ringLowerBound(double qLat, double qLng, double cosQ, int qr, int qc, int ring) {
+        double bound = Double.POSITIVE_INFINITY;
+
+        int inner = ring - 1;
+
+        if (qr - inner > 0) {
+            double edge = minLat + (qr - inner) * cellLat;
+            bound = Math.min(bound, latBound(qLat - edge));
+        }
+        if (qr + inner < rows - 1) {
+            double edge = minLat + (qr + inner + 1) * cellLat;
+            bound = Math.min(bound, latBound(edge - qLat));
+        }
+        if (cols > 1) {
+            if (qc - inner > 0) {
+                double edge = minLng + (qc - inner) * cellLng;
+                bound = Math.min(bound, lngBound(qLng - edge, cosQ));
+            }
+            if (qc + inner < cols - 1) {
+                double edge = minLng + (qc + inner + 1) * cellLng;
+                bound = Math.min(bound, lngBound(edge - qLng, cosQ));
+            }
+        }
+
+        return bound;
+    }
+
+    // meridian arcs are geodesics, so a latitude gap alone is a lower bound on distance
+    private static double latBound(double dLatDeg) {
+        if (dLatDeg <= 0) return 0;
+        return GeoMath.EARTH_RADIUS_M * Math.toRadians(dLatDeg);
+    }
+
+    // hav(d) >= cos(lat1) * cos(lat2) * hav(dLon), with cos(lat2) >= cosLatMin inside the box
+    private double lngBound(double dLngDeg, double cosQ) {
+        if (dLngDeg <= 0) return 0;
+        double s = Math.sin(Math.toRadians(Math.min(dLngDeg, 180)) / 2);
+        double h = Math.max(0, cosQ) * cosLatMin * s * s;
+        return 2 * GeoMath.EARTH_RADIUS_M * Math.asin(Math.sqrt(Math.min(1, h)));
+    }
+
+    private int cellFor(double pointLat, double pointLng) {
+        int r = (int) Math.floor((pointLat - minLat) / cellLat);
+        int c = cols == 1 ? 0 : (int) Math.floor((pointLng - minLng) / cellLng);
+        // points sitting exactly on the max edge belong to the last cell
+        if (r == rows) r--;
+        if (c == cols) c--;
+        if (r < 0 || r >= rows || c < 0 || c >= cols) {
+            throw new IllegalArgumentException("Point outside index bounds: " + pointLat + "," + pointLng);
+        }
+        return r * cols + c;
+    }
+
+    private void addToCell(int id, int cell) {
+        int[] members = cells[cell];
+        int n = cellCount[cell];
+        if (members == null) {
+            members = new int[4];
+            cells[cell] = members;
+        } else if (n == members.length) {
+            members = Arrays.copyOf(members, n * 2);
+            cells[cell] = members;
+        }
+        members[n] = id;
+        slotInCell[id] = n;
+        cellOf[id] = cell;
+        cellCount[cell] = n + 1;
+    }
+
+    private void removeFromCell(int id, int cell) {
+        int[] members = cells[cell];
+        int last = cellCount[cell] - 1;
+        int slot = slotInCell[id];
+
+        int moved = members[last];
+        members[slot] = moved;
+        slotInCell[moved] = slot;
+
+        cellCount[cell] = last;
+        cellOf[id] = -1;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+}
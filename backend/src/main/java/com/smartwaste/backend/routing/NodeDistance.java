@@ -0,0 +1,10 @@
+package com.smartwaste.backend.routing;
+
+/**
+ * Distance in meters between two route nodes, addressed by their local node index.
+ */
+@FunctionalInterface
+public interface NodeDistance {
+
+    double between(int a, int b);
+}
@@ -0,0 +1,309 @@
+package com.smartwaste.backend.routing;
+
+import java.util.Arrays;
+
+/**
+ * Local-search improvement for an open route that starts at a fixed node (the truck's position).
+ * <p>
+ * Runs 2-opt (segment reversal) and Or-opt (move a chain of 1-3 stops, optionally reversed) until no
+ * improving move is left or {@code maxMoves} moves have been applied, so the same input always gives the
+ * same tour. Candidate moves are restricted to each node's nearest neighbours, and don't-look bits keep
+ * nodes out of the work queue until a neighbouring edge changes.
+ * <p>
+ * An optional wall-clock deadline caps the search as a safety net; when it fires the result depends on
+ * timing.
+ */
+public class RouteImprover {
+
+    public static final int DEFAULT_NEIGHBOURS = 8;
+    public static final int DEFAULT_MAX_MOVES = 50_000;
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int MAX_OR_OPT_CHAIN = 3;
+    private static final double EPS = 1e-7;
+
+    private final int neighbours;
+    private final int maxMoves;
+
+    public RouteImprover(int neighbours) {
+        this(neighbours, DEFAULT_MAX_MOVES);
+    }
+
+    public RouteImprover(int neighbours, int maxMoves) {
+        this.neighbours = Math.max(1, neighbours);
+        this.maxMoves = Math.max(0, maxMoves);
+    }
+
+    /**
+     * @param tour     permutation of node indices 0..n-1; tour[0] is the start and never moves
+     * @param dist     distance between node indices
+     * @param deadline {@link System#nanoTime()} value after which the search stops, or {@link #NO_DEADLINE}
+     * @return the improved tour (a new array; the input is not modified)
+     */
+    public int[] improve(int[] tour, NodeDistance dist, long deadline) {
+        int n = tour.length;
+        if (n < 3) return tour.clone();
+
+        Search s = new Search(tour.clone(), dist, deadline);
+        if (!s.buildNeighbourLists()) return s.t;
+        s.run();
+        return s.t;
+    }
+
+    // Length of the open path tour[0] -> tour[1] -> ... -> tour[n-1]
+    public static double pathLength(int[] tour, NodeDistance dist) {
+        double total = 0;
+        for (int i = 0; i + 1 < tour.length; i++) {
+            total += dist.between(tour[i], tour[i + 1]);
+        }
+        return total;
+    }
+
+    private final class Search {
+        final int[] t;
+        final int[] pos;
+        final NodeDistance dist;
+        final long deadline;
+        final boolean timed;
+        final int n;
+        final int last;
+
+        int[][] nbr;
+
+        // FIFO of active nodes; a node not in the queue has its don't-look bit set
+        final int[] queue;
+        final boolean[] queued;
+        int head;
+        int count;
+
+        Search(int[] t, NodeDistance dist, long deadline) {
+            this.t = t;
+            this.n = t.length;
+            this.last = n - 1;
+            this.dist = dist;
+            this.deadline = deadline;
+            this.timed = deadline != NO_DEADLINE;
+            this.pos = new int[n];
+            this.queue = new int[n];
+            this.queued = new boolean[n];
+            for (int i = 0; i < n; i++) pos[t[i]] = i;
+        }
+
+        boolean buildNeighbourLists() {
+            int k = Math.min(neighbours, n - 1);
+            nbr = new int[n][];
+
+            double[] bestD = new double[k];
+
+            for (int a = 0; a < n; a++) {
+                if (timed && System.nanoTime() > deadline) return false;
+
+                // keep the k closest nodes in a small sorted buffer (ties -> lower index)
+                int[] list = new int[k];
+                int size = 0;
+                for (int b = 0; b < n; b++) {
+                    if (b == a) continue;
+                    double db = dist.between(a, b);
+                    if (size == k && db >= bestD[k - 1]) continue;
+
+                    int at = size == k ? k - 1 : size++;
+                    while (at > 0 && bestD[at - 1] > db) {
+                        bestD[at] = bestD[at - 1];
+                        list[at] = list[at - 1];
+                        at--;
+                    }
+                    bestD[at] = db;
+                    list[at] = b;
+                }
+                nbr[a] = list;
+            }
+            return true;
+        }
+
+        void run() {
+            for (int i = 0; i < n; i++) push(t[i]);
+
+            int moves = 0;
+            while (count > 0 && moves < maxMoves) {
+                if (timed && System.nanoTime() > deadline) return;
+
+                int a = pop();
+                if (twoOpt(a) || orOpt(a)) {
+                    push(a);
+                    moves++;
+                }
+            }
+        }
+
+        double d(int a, int b) {
+            return dist.between(a, b);
+        }
+
+        // ---------------- 2-opt ----------------
+
+        boolean twoOpt(int a) {
+            int i = pos[a];
+
+            // new edge (a, c) where c lies after a: reverse t[i+1..j]
+            if (i < last) {
+                int b = t[i + 1];
+                double dab = d(a, b);
+                for (int c : nbr[a]) {
+                    int j = pos[c];
+                    if (j <= i + 1) continue;
+
+                    double gain = dab - d(a, c);
+                    if (gain <= EPS) break; // neighbour lists are sorted, no later c can help
+
+                    int e = j < last ? t[j + 1] : -1;
+                    double delta = (e >= 0 ? d(b, e) - d(c, e) : 0) - gain;
+                    if (delta < -EPS) {
+                        reverse(i + 1, j);
+                        push(a); push(b); push(c);
+                        if (e >= 0) push(e);
+                        return true;
+                    }
+                }
+            }
+
+            // new edge (c, a) where c lies before a: reverse t[j+1..i]
+            for (int c : nbr[a]) {
+                int j = pos[c];
+                if (j >= i - 1) continue;
+
+                int b = t[j + 1];
+                int e = i < last ? t[i + 1] : -1;
+                double delta = d(c, a) - d(c, b)
+                        + (e >= 0 ? d(b, e) - d(a, e) : 0);
+                if (delta < -EPS) {
+                    reverse(j + 1, i);
+                    push(a); push(b); push(c);
+                    if (e >= 0) push(e);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        void reverse(int from, int to) {
+            while (from < to) {
+                int x = t[from];
+                t[from] = t[to];
+                t[to] = x;
+                pos[t[from]] = from;
+                pos[t[to]] = to;
+                from++;
+                to--;
+            }
+        }
+
+        // ---------------- Or-opt ----------------
+
+        boolean orOpt(int a) {
+            int pa = pos[a];
+            if (pa == 0) return false;
+
+            for (int len = 1; len <= MAX_OR_OPT_CHAIN; len++) {
+                // chain starting at a, then chain ending at a
+                if (tryChain(pa, pa + len - 1)) return true;
+                if (len > 1 && tryChain(pa - len + 1, pa)) return true;
+            }
+            return false;
+        }
+
+        boolean tryChain(int s, int e) {
+            if (s < 1 || e > last) return false;
+
+            int u = t[s];
+            int v = t[e];
+            int p = t[s - 1];
+            int q = e < last ? t[e + 1] : -1;
+
+            double removeGain = d(p, u) + (q >= 0 ? d(v, q) - d(p, q) : 0);
+            if (removeGain <= EPS) return false;
+
+            for (int end = 0; end < (s == e ? 1 : 2); end++) {
+                int x = end == 0 ? u : v;
+                int other = end == 0 ? v : u;
+
+                for (int c : nbr[x]) {
+                    int pc = pos[c];
+                    if (pc >= s && pc <= e) continue;
+
+                    // insert after c: c, x .. other, c2
+                    int c2 = pc < last ? t[pc + 1] : -1;
+                    if (c2 < 0 || pos[c2] < s || pos[c2] > e) {
+                        double added = d(c, x) + (c2 >= 0 ? d(other, c2) - d(c, c2) : 0);
+                        if (added - removeGain < -EPS) {
+                            moveChain(s, e, c, true, x == v);
+                            push(p); push(u); push(v); push(c);
+                            if (q >= 0) push(q);
+                            if (c2 >= 0) push(c2);
+                            return true;
+                        }
+                    }
+
+                    // insert before c: c0, other .. x, c  (never in front of the start node)
+                    if (pc >= 1) {
+                        int c0 = t[pc - 1];
+                        if (pos[c0] < s || pos[c0] > e) {
+                            double added = d(c0, other) + d(x, c) - d(c0, c);
+                            if (added - removeGain < -EPS) {
+                                moveChain(s, e, c, false, x == u);
+                                push(p); push(u); push(v); push(c); push(c0);
+                                if (q >= 0) push(q);
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Removes t[s..e] and re-inserts it after (or before) node c, optionally reversed.
+        void moveChain(int s, int e, int c, boolean after, boolean reversed) {
+            int len = e - s + 1;
+            int[] chain = Arrays.copyOfRange(t, s, e + 1);
+            if (reversed) {
+                for (int i = 0, j = len - 1; i < j; i++, j--) {
+                    int x = chain[i];
+                    chain[i] = chain[j];
+                    chain[j] = x;
+                }
+            }
+
+            int[] rest = new int[n - len];
+            System.arraycopy(t, 0, rest, 0, s);
+            System.arraycopy(t, e + 1, rest, s, n - e - 1);
+
+            int at = 0;
+            while (rest[at] != c) at++;
+            if (after) at++;
+
+            System.arraycopy(rest, 0, t, 0, at);
+            System.arraycopy(chain, 0, t, at, len);
+            System.arraycopy(rest, at, t, at + len, rest.length - at);
+
+            for (int i = 0; i < n; i++) pos[t[i]] = i;
+        }
+
+        // ---------------- work queue ----------------
+
+        void push(int node) {
+            if (queued[node]) return;
+            queued[node] = true;
+            queue[(head + count) % n] = node;
+            count++;
+        }
+
+        int pop() {
+            int node = queue[head];
+            head = (head + 1) % n;
+            count--;
+            queued[node] = false;
+            return node;
+        }
+    }
+}
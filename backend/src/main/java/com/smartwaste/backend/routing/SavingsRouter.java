@@ -0,0 +1,276 @@
+package com.smartwaste.backend.routing;
+
+import com.smartwaste.backend.geo.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Capacitated route construction with the Clarke-Wright savings algorithm.
+ * <p>
+ * Every stop starts on its own out-and-back route from a (virtual) depot. Merging the routes that end
+ * in stops i and j saves {@code d(0,i) + d(0,j) - d(i,j)}; pairs are taken from a max-heap in savings
+ * order and merged when both stops are route ends and the combined load and stop count fit. Savings are
+ * only computed for each stop's k nearest stops, which keeps the heap linear in the number of stops.
+ */
+public class SavingsRouter {
+
+    public static final int DEFAULT_NEIGHBOURS = 24;
+
+    private final int neighbours;
+
+    public SavingsRouter(int neighbours) {
+        this.neighbours = Math.max(1, neighbours);
+    }
+
+    /**
+     * @param lat       stop latitudes
+     * @param lng       stop longitudes
+     * @param load      stop loads (same unit as {@code capacity})
+     * @param depotLat  depot latitude (savings reference point)
+     * @param depotLng  depot longitude
+     * @param capacity  maximum load per route
+     * @param maxStops  maximum stops per route
+     * @return routes as ordered stop indices; stops whose own load exceeds the capacity are left out
+     */
+    public List<int[]> build(double[] lat, double[] lng, double[] load,
+                             double depotLat, double depotLng,
+                             double capacity, int maxStops) {
+        int n = lat.length;
+        List<int[]> result = new ArrayList<>();
+        if (n == 0 || maxStops <= 0) return result;
+
+        double[] d0 = new double[n];
+        GeoMath.haversineFrom(depotLat, depotLng, GeoMath.cosLat(depotLat), lat, lng, GeoMath.cosLat(lat), 0, n, d0);
+
+        SavingsHeap heap = buildSavings(lat, lng, d0);
+
+        // routes as doubly linked lists; a route is identified by its representative stop
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        int[] routeOf = new int[n];
+        int[] head = new int[n];
+        int[] tail = new int[n];
+        int[] count = new int[n];
+        double[] routeLoad = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            next[i] = -1;
+            prev[i] = -1;
+            routeOf[i] = i;
+            head[i] = i;
+            tail[i] = i;
+            count[i] = 1;
+            routeLoad[i] = load[i];
+        }
+
+        while (heap.size() > 0) {
+            int i = heap.topA();
+            int j = heap.topB();
+            heap.pop();
+
+            int ri = routeOf[i];
+            int rj = routeOf[j];
+            if (ri == rj) continue;
+            if (count[ri] + count[rj] > maxStops) continue;
+            if (routeLoad[ri] + routeLoad[rj] > capacity) continue;
+
+            boolean iHead = head[ri] == i, iTail = tail[ri] == i;
+            boolean jHead = head[rj] == j, jTail = tail[rj] == j;
+            if (!(iHead || iTail) || !(jHead || jTail)) continue; // interior stops cannot be linked
+
+            // orient so that we link (tail of first) -> (head of second)
+            int first, second;
+            if (iTail && jHead) {
+                first = ri;
+                second = rj;
+            } else if (jTail && iHead) {
+                first = rj;
+                second = ri;
+            } else if (count[ri] <= count[rj]) {
+                // both tails or both heads: flip the smaller route
+                reverse(ri, next, prev, head, tail);
+                if (jHead) { first = ri; second = rj; } else { first = rj; second = ri; }
+            } else {
+                reverse(rj, next, prev, head, tail);
+                if (iTail) { first = ri; second = rj; } else { first = rj; second = ri; }
+            }
+
+            int a = tail[first];
+            int b = head[second];
+            next[a] = b;
+            prev[b] = a;
+
+            // keep the larger route's id, relabel the smaller one
+            int keep = count[first] >= count[second] ? first : second;
+            int drop = keep == first ? second : first;
+            int s = head[drop];
+            for (int m = 0; m < count[drop]; m++, s = next[s]) routeOf[s] = keep;
+
+            head[keep] = head[first];
+            tail[keep] = tail[second];
+            count[keep] = count[first] + count[second];
+            routeLoad[keep] = routeLoad[first] + routeLoad[second];
+        }
+
+        boolean[] emitted = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int r = routeOf[i];
+            if (emitted[r]) continue;
+            emitted[r] = true;
+            if (routeLoad[r] > capacity) continue; // a single stop that no vehicle can hold
+
+            int[] path = new int[count[r]];
+            int k = 0;
+            for (int s = head[r]; s != -1; s = next[s]) path[k++] = s;
+            result.add(path);
+        }
+        return result;
+    }
+
+    private SavingsHeap buildSavings(double[] lat, double[] lng, double[] d0) {
+        int n = lat.length;
+        int k = Math.min(neighbours, n - 1);
+        SavingsHeap heap = new SavingsHeap(n * Math.max(1, k));
+        if (k <= 0) return heap;
+
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minLat = Math.min(minLat, lat[i]);
+            maxLat = Math.max(maxLat, lat[i]);
+            minLng = Math.min(minLng, lng[i]);
+            maxLng = Math.max(maxLng, lng[i]);
+        }
+
+        GeoGridIndex grid = new GeoGridIndex(n, minLat, maxLat, minLng, maxLng);
+        for (int i = 0; i < n; i++) grid.insert(i, lat[i], lng[i]);
+
+        int[][] nbr = new int[n][];
+        double[][] nbrDist = new double[n][];
+        int[] ids = new int[k];
+        double[] dist = new double[k];
+        for (int i = 0; i < n; i++) {
+            int found = grid.kNearest(lat[i], lng[i], k, i, ids, dist);
+            nbr[i] = Arrays.copyOf(ids, found);
+            nbrDist[i] = Arrays.copyOf(dist, found);
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int m = 0; m < nbr[i].length; m++) {
+                int j = nbr[i][m];
+                // each unordered pair once: from the lower index, or from j's side if i is not in j's list
+                if (j < i && contains(nbr[j], i)) continue;
+
+                double saving = d0[i] + d0[j] - nbrDist[i][m];
+                if (saving > 0) heap.push(saving, Math.min(i, j), Math.max(i, j));
+            }
+        }
+        return heap;
+    }
+
+    private static boolean contains(int[] list, int v) {
+        for (int x : list) if (x == v) return true;
+        return false;
+    }
+
+    private static void reverse(int r, int[] next, int[] prev, int[] head, int[] tail) {
+        int s = head[r];
+        while (s != -1) {
+            int n = next[s];
+            next[s] = prev[s];
+            prev[s] = n;
+            s = n;
+        }
+        int h = head[r];
+        head[r] = tail[r];
+        tail[r] = h;
+    }
+
+    /**
+     * Binary max-heap of (saving, i, j) in primitive arrays; equal savings pop in (i, j) order.
+     */
+    static final class SavingsHeap {
+        private double[] key;
+        private int[] a;
+        private int[] b;
+        private int size;
+
+        SavingsHeap(int capacity) {
+            capacity = Math.max(4, capacity);
+            key = new double[capacity];
+            a = new int[capacity];
+            b = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int topA() {
+            return a[0];
+        }
+
+        int topB() {
+            return b[0];
+        }
+
+        void push(double k, int i, int j) {
+            if (size == key.length) {
+                int cap = size * 2;
+                key = Arrays.copyOf(key, cap);
+                a = Arrays.copyOf(a, cap);
+                b = Arrays.copyOf(b, cap);
+            }
+            int at = size++;
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (!before(k, i, j, parent)) break;
+                set(at, key[parent], a[parent], b[parent]);
+                at = parent;
+            }
+            set(at, k, i, j);
+        }
+
+        void pop() {
+            int lastAt = --size;
+            if (lastAt == 0) return;
+
+            double k = key[lastAt];
+            int i = a[lastAt];
+            int j = b[lastAt];
+
+            int at = 0;
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= size) break;
+                if (child + 1 < size && higher(child + 1, key[child], a[child], b[child])) child++;
+                if (!higher(child, k, i, j)) break;
+                set(at, key[child], a[child], b[child]);
+                at = child;
+            }
+            set(at, k, i, j);
+        }
+
+        // does (k, i, j) come before the entry at position p?
+        private boolean before(double k, int i, int j, int p) {
+            if (k != key[p]) return k > key[p];
+            if (i != a[p]) return i < a[p];
+            return j < b[p];
+        }
+
+        // does the entry at position p come before (k, i, j)?
+        private boolean higher(int p, double k, int i, int j) {
+            if (key[p] != k) return key[p] > k;
+            if (a[p] != i) return a[p] < i;
+            return b[p] < j;
+        }
+
+        private void set(int p, double k, int i, int j) {
+            key[p] = k;
+            a[p] = i;
+            b[p] = j;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.util.LongIntHashMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bins that are on an {@code assigned} / {@code in_progress} route (the IoT route lock), as a bitmap over
+ * bin ids so {@link #contains} is a lock-free array read.
+ * <p>
+ * Built from the database at startup; after each {@link RouteChangedEvent} (route generation, status
+ * changes, collection, edits) the affected routes are re-read and their bins re-counted. A bin stays in the
+ * set while at least one active route holds it.
+ */
+@Component
+public class ActiveRouteBins {
+
+    // ids up to this go to the bitmap (16 MB at most); larger ones to a hash set
+    static final long MAX_BITMAP_ID = 1L << 27;
+
+    private static final String ACTIVE_ROUTES_SQL =
+            "SELECT cr.id, cr.route_date, " +
+                    "COALESCE(array_agg(crb.bin_id) FILTER (WHERE crb.bin_id IS NOT NULL), '{}') AS bin_ids " +
+                    "FROM collection_route cr " +
+                    "LEFT JOIN collection_route_bins crb ON crb.route_id = cr.id " +
+                    "WHERE LOWER(cr.status) IN ('assigned','in_progress') ";
+
+    private record ActiveRoute(LocalDate routeDate, long[] binIds) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    // read without locking
+    private volatile AtomicLongArray bits = new AtomicLongArray(0);
+    private final Set<Long> largeIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    // guarded by this
+    private final Map<Long, ActiveRoute> routes = new HashMap<>();
+    private final LongIntHashMap routesPerBin = new LongIntHashMap(1024, 0);
+
+    public ActiveRouteBins(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // ✅ Is the bin on an active route?
+    public boolean contains(long binId) {
+        if (!loaded) load();
+        if (binId < 0 || binId > MAX_BITMAP_ID) return largeIds.contains(binId);
+        AtomicLongArray b = bits;
+        int word = (int) (binId >>> 6);
+        return word < b.length() && (b.get(word) & (1L << binId)) != 0;
+    }
+
+    public synchronized int size() {
+        if (!loaded) load();
+        return routesPerBin.size();
+    }
+
+    // ✅ Build from every active route once the app is up (and lazily if a reading comes first)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (loaded) return;
+        jdbc.query(ACTIVE_ROUTES_SQL + "GROUP BY cr.id", rs -> {
+            put(rs.getLong("id"), activeRoute(rs));
+        });
+        loaded = true;
+        System.out.println("🟢 ActiveRouteBins loaded: " + routes.size() + " active route(s), "
+                + routesPerBin.size() + " locked bin(s)");
+    }
+
+    // ✅ Routes changed (after commit): re-read them, and every route of the event's date
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        if (!loaded) {
+            load();
+            return;
+        }
+
+        Set<Long> affected = new HashSet<>(event.routeIds());
+        if (event.routeDate() != null) {
+            // routes of the date that are gone (regenerated / deleted) are only known from here
+            routes.forEach((id, r) -> {
+                if (event.routeDate().equals(r.routeDate)) affected.add(id);
+            });
+        }
+
+        Map<Long, ActiveRoute> current = new HashMap<>();
+        RowCallbackHandler collect = rs -> current.put(rs.getLong("id"), activeRoute(rs));
+        if (event.routeDate() == null) {
+            jdbc.query(ACTIVE_ROUTES_SQL + "AND cr.id = ANY(?) GROUP BY cr.id", collect,
+                    new SqlArrayValue("bigint", affected.toArray()));
+        } else {
+            jdbc.query(ACTIVE_ROUTES_SQL + "AND (cr.id = ANY(?) OR cr.route_date = ?) GROUP BY cr.id", collect,
+                    new SqlArrayValue("bigint", affected.toArray()), Date.valueOf(event.routeDate()));
+        }
+
+        // count the new bins before releasing the old ones: a bin that stays locked never reads unlocked
+        List<ActiveRoute> previous = new ArrayList<>();
+        for (Long id : affected) {
+            ActiveRoute r = routes.remove(id);
+            if (r != null) previous.add(r);
+        }
+        current.forEach(this::put);
+        for (ActiveRoute r : previous) release(r);
+    }
+
+    private static ActiveRoute activeRoute(ResultSet rs) throws SQLException {
+        Date d = rs.getDate("route_date");
+        List<Long> binIds = RouteDistanceService.toLongList(rs.getArray("bin_ids"));
+        return new ActiveRoute(d == null ? null : d.toLocalDate(),
+                binIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    // caller holds this
+    private void put(long routeId, ActiveRoute route) {
+        routes.put(routeId, route);
+        for (long binId : route.binIds) {
+            int n = routesPerBin.get(binId);
+            routesPerBin.put(binId, n + 1);
+            if (n == 0) setBit(binId, true);
+        }
+    }
+
+    // caller holds this; the route is already out of routes
+    private void release(ActiveRoute route) {
+        for (long binId : route.binIds) {
+            int n = routesPerBin.get(binId);
+            if (n <= 1) {
+                routesPerBin.remove(binId);
+                setBit(binId, false);
+            } else {
+                routesPerBin.put(binId, n - 1);
+            }
+        }
+    }
+
+    // caller holds this (single writer); readers see each word change atomically
+    private void setBit(long binId, boolean on) {
+        if (binId < 0 || binId > MAX_BITMAP_ID) {
+            if (on) largeIds.add(binId);
+            else largeIds.remove(binId);
+            return;
+        }
+        int word = (int) (binId >>> 6);
+        AtomicLongArray b = bits;
+        if (word >= b.length()) {
+            if (!on) return;
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, b.length() * 2));
+            for (int i = 0; i < b.length(); i++) grown.set(i, b.get(i));
+            bits = b = grown;
+        }
+        long mask = 1L << binId;
+        long w = b.get(word);
+        b.set(word, on ? (w | mask) : (w & ~mask));
+    }
+}
@@ -1,70 +1,41 @@
 package com.smartwaste.backend.service;
 
 import com.smartwaste.backend.dto.AnalyticsSummaryDto;
-import com.smartwaste.backend.dto.RouteDto;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.sql.Date;
 import java.time.LocalDate;
-import java.util.List;
 
 @Service
 public class AnalyticsService {
 
-    private final JdbcTemplate jdbc;
-    private final RouteQueryService routeQueryService;
+    private final BinStateStore binState;
+    private final DailyRouteStatsService dailyRouteStats;
 
-    public AnalyticsService(JdbcTemplate jdbc, RouteQueryService routeQueryService) {
-        this.jdbc = jdbc;
-        this.routeQueryService = routeQueryService;
+    public AnalyticsService(BinStateStore binState, DailyRouteStatsService dailyRouteStats) {
+        this.binState = binState;
+        this.dailyRouteStats = dailyRouteStats;
     }
 
     public AnalyticsSummaryDto getSummary(LocalDate date) {
 
-        // ✅ bins
-        Long totalBins = jdbc.queryForObject("SELECT COUNT(*) FROM bin", Long.class);
+        // ✅ bins (one pass over the in-memory state)
+        long[] binCounts = new long[3]; // total, critical, warning
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+            binCounts[0]++;
+            if (overflow || fillLevel >= 95) binCounts[1]++;
+            else if (fillLevel >= 80) binCounts[2]++;
+        });
 
-        Long criticalBins = jdbc.queryForObject(
-                "SELECT COUNT(*) FROM bin WHERE overflow = true OR fill_level >= 95",
-                Long.class
-        );
-
-        Long warningBins = jdbc.queryForObject(
-                "SELECT COUNT(*) FROM bin WHERE overflow = false AND fill_level >= 80 AND fill_level < 95",
-                Long.class
-        );
-
-        // ✅ routes
-        Long routesToday = jdbc.queryForObject(
-                "SELECT COUNT(*) FROM collection_route WHERE route_date = ?",
-                Long.class,
-                Date.valueOf(date)
-        );
-
-        Long completedRoutesToday = jdbc.queryForObject(
-                "SELECT COUNT(*) FROM collection_route WHERE route_date = ? AND status = 'completed'",
-                Long.class,
-                Date.valueOf(date)
-        );
-
-        // ✅ total distance today
-        String dateStr = date.toString();
-
-        List<RouteDto> allRoutes = routeQueryService.getAllRoutesWithDistance();
-
-        double totalDistanceTodayKm = allRoutes.stream()
-                .filter(r -> r.getRouteDate() != null && dateStr.equals(r.getRouteDate().toString()))
-                .mapToDouble(RouteDto::getDistanceKm)   // ✅ FIX: distanceKm is primitive double, no null checks
-                .sum();
+        // ✅ routes (daily rollup, cached per date)
+        DailyRouteStatsService.DailyRouteStats routes = dailyRouteStats.get(date);
 
         return new AnalyticsSummaryDto(
-                totalBins == null ? 0 : totalBins,
-                criticalBins == null ? 0 : criticalBins,
-                warningBins == null ? 0 : warningBins,
-                routesToday == null ? 0 : routesToday,
-                completedRoutesToday == null ? 0 : completedRoutesToday,
-                totalDistanceTodayKm
+                binCounts[0],
+                binCounts[1],
+                binCounts[2],
+                routes.routes(),
+                routes.completedRoutes(),
+                routes.distanceKm()
         );
     }
 }
@@ -1,21 +1,91 @@
 package com.smartwaste.backend.service;
 
+import com.smartwaste.backend.geo.GeoMath;
+import com.smartwaste.backend.routing.CheapestInsertion;
+import com.smartwaste.backend.routing.GeoGridIndex;
+import com.smartwaste.backend.routing.NodeDistance;
+import com.smartwaste.backend.routing.RouteImprover;
+import com.smartwaste.backend.routing.SavingsRouter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 @Service
 public class AutoRouteService {
 
     private final JdbcTemplate jdbc;
-
-    public AutoRouteService(JdbcTemplate jdbc) {
+    private final TransactionTemplate transactionTemplate;
+    private final DistanceMatrixService distanceMatrix;
+    private final RouteDistanceService routeDistance;
+    private final BinStateStore binState;
+    private final ApplicationEventPublisher events;
+
+    // ✅ 2-opt / Or-opt improvement after nearest-neighbor ordering
+    private final boolean improveEnabled;
+    private final long improveBudgetMs;
+    private final RouteImprover routeImprover;
+
+    // ✅ Capacity-aware routing (algorithm=savings)
+    public static final String ALGORITHM_GREEDY = "greedy";
+    public static final String ALGORITHM_SAVINGS = "savings";
+
+    // ✅ Generation phases reported through GenerationProgress
+    public static final String PHASE_LOADING = "loading";
+    public static final String PHASE_ASSIGNING = "assigning";
+    public static final String PHASE_ORDERING = "ordering";
+    public static final String PHASE_SAVING = "saving";
+    private final SavingsRouter savingsRouter;
+    private final int defaultBinCapacityLiters;
+    private final int defaultVehicleCapacityLiters;
+
+    // ✅ Per-driver ordering runs on this bounded pool (null = sequential)
+    private final ForkJoinPool routingPool;
+
+    public AutoRouteService(
+            JdbcTemplate jdbc,
+            TransactionTemplate transactionTemplate,
+            DistanceMatrixService distanceMatrix,
+            RouteDistanceService routeDistance,
+            BinStateStore binState,
+            ApplicationEventPublisher events,
+            @Value("${routing.improve.enabled:true}") boolean improveEnabled,
+            @Value("${routing.improve.max-moves:" + RouteImprover.DEFAULT_MAX_MOVES + "}") int improveMaxMoves,
+            @Value("${routing.improve.time-budget-ms:0}") long improveBudgetMs,
+            @Value("${routing.improve.neighbours:" + RouteImprover.DEFAULT_NEIGHBOURS + "}") int improveNeighbours,
+            @Value("${routing.parallel.enabled:true}") boolean parallelEnabled,
+            @Value("${routing.parallel.threads:0}") int parallelThreads,
+            @Value("${routing.savings.neighbours:" + SavingsRouter.DEFAULT_NEIGHBOURS + "}") int savingsNeighbours,
+            @Value("${routing.default-bin-capacity-liters:240}") int defaultBinCapacityLiters,
+            @Value("${routing.default-vehicle-capacity-liters:8000}") int defaultVehicleCapacityLiters
+    ) {
         this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.distanceMatrix = distanceMatrix;
+        this.routeDistance = routeDistance;
+        this.binState = binState;
+        this.events = events;
+        this.improveEnabled = improveEnabled;
+        this.improveBudgetMs = improveBudgetMs;
+        this.routeImprover = new RouteImprover(improveNeighbours, improveMaxMoves);
+        this.savingsRouter = new SavingsRouter(savingsNeighbours);
+        this.defaultBinCapacityLiters = defaultBinCapacityLiters;
+        this.defaultVehicleCapacityLiters = defaultVehicleCapacityLiters;
+
+        int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+        this.routingPool = (parallelEnabled && threads > 1) ? new ForkJoinPool(threads) : null;
     }
 
     private static class BinPoint {
@@ -24,13 +94,15 @@ public class AutoRouteService {
         double lng;
         int fill;
         boolean overflow;
+        int capacityLiters;
 
-        BinPoint(long id, double lat, double lng, int fill, boolean overflow) {
+        BinPoint(long id, double lat, double lng, int fill, boolean overflow, int capacityLiters) {
             this.id = id;
             this.lat = lat;
             this.lng = lng;
             this.fill = fill;
             this.overflow = overflow;
+            this.capacityLiters = capacityLiters;
         }
     }
 
@@ -38,11 +110,13 @@ public class AutoRouteService {
         long id;
         double lat;
         double lng;
+        int capacityLiters;
 
-        DriverRow(long id, double lat, double lng) {
+        DriverRow(long id, double lat, double lng, int capacityLiters) {
             this.id = id;
             this.lat = lat;
             this.lng = lng;
+            this.capacityLiters = capacityLiters;
         }
     }
 
@@ -60,101 +134,509 @@ public class AutoRouteService {
         }
     }
 
+    private static class PlannedRoute {
+        long driverId;
+        List<BinPoint> stops;
+        double distanceBeforeMeters;
+        double distanceAfterMeters;
+
+        PlannedRoute(long driverId, List<BinPoint> stops, double distanceBeforeMeters, double distanceAfterMeters) {
+            this.driverId = driverId;
+            this.stops = stops;
+            this.distanceBeforeMeters = distanceBeforeMeters;
+            this.distanceAfterMeters = distanceAfterMeters;
+        }
+    }
+
+    // ✅ Result of planRoutes: everything commitPlan needs, nothing written yet
+    public static class RoutePlan {
+        private final LocalDate routeDate;
+        private final int threshold;
+        private final int maxStopsPerRoute;
+        private final String algorithm;
+        private final List<PlannedRoute> routes = new ArrayList<>();
+        private int binsUsed;
+        private String emptyMessage;
+
+        RoutePlan(LocalDate routeDate, int threshold, int maxStopsPerRoute, String algorithm) {
+            this.routeDate = routeDate;
+            this.threshold = threshold;
+            this.maxStopsPerRoute = maxStopsPerRoute;
+            this.algorithm = algorithm;
+        }
+
+        public int routeCount() {
+            return routes.size();
+        }
+
+        public int binsUsed() {
+            return binsUsed;
+        }
+
+        // planned driving distance incl. each truck's first leg (after improvement)
+        public double distanceMeters() {
+            double total = 0;
+            for (PlannedRoute r : routes) total += r.distanceAfterMeters;
+            return total;
+        }
+    }
+
+    // ✅ Progress / cancellation hooks for background runs (see RouteJobService)
+    public interface GenerationProgress {
+        GenerationProgress NONE = new GenerationProgress() {
+            @Override
+            public void phase(String phase, int steps) {
+            }
+
+            @Override
+            public void advance() {
+            }
+
+            @Override
+            public boolean cancelled() {
+                return false;
+            }
+        };
+
+        // a new phase with the given number of steps (0 = not counted)
+        void phase(String phase, int steps);
+
+        // one step of the current phase is done (may be called from routing threads)
+        void advance();
+
+        boolean cancelled();
+    }
+
+    private static class LiveRoute {
+        long routeId;
+        DriverRow driver;
+        List<BinPoint> stops = new ArrayList<>();
+
+        LiveRoute(long routeId, DriverRow driver) {
+            this.routeId = routeId;
+            this.driver = driver;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (routingPool != null) routingPool.shutdown();
+    }
+
     @Transactional
     public Map<String, Object> generateRoutes(LocalDate routeDate, int threshold, int maxStopsPerRoute) {
+        return generateRoutes(routeDate, threshold, maxStopsPerRoute, ALGORITHM_GREEDY);
+    }
 
-        // ✅ 0) Clear existing routes for that date (prevents duplicates)
-        clearRoutesForDate(routeDate);
+    @Transactional
+    public Map<String, Object> generateRoutes(LocalDate routeDate, int threshold, int maxStopsPerRoute, String algorithm) {
+        return commitPlan(planRoutes(routeDate, threshold, maxStopsPerRoute, algorithm, GenerationProgress.NONE));
+    }
+
+    // ✅ Builds the whole plan from plain reads (no transaction needed) and writes nothing.
+    // Throws CancellationException as soon as progress reports the run as cancelled.
+    public RoutePlan planRoutes(LocalDate routeDate, int threshold, int maxStopsPerRoute, String algorithm,
+                                GenerationProgress progress) {
+        if (!ALGORITHM_GREEDY.equals(algorithm) && !ALGORITHM_SAVINGS.equals(algorithm)) {
+            throw new IllegalArgumentException("Invalid algorithm: " + algorithm + " (use greedy|savings)");
+        }
+        RoutePlan plan = new RoutePlan(routeDate, threshold, maxStopsPerRoute, algorithm);
 
         // ✅ 1) Pick ONLY bins that need collection (NO green bins)
         // Priority: overflow first, then highest fill
-        List<BinPoint> bins = jdbc.query(
-                "SELECT id, latitude, longitude, fill_level, overflow " +
-                        "FROM bin " +
-                        "WHERE fill_level >= ? OR overflow = true " +
-                        "ORDER BY overflow DESC, fill_level DESC",
-                (rs, rowNum) -> new BinPoint(
-                        rs.getLong("id"),
-                        rs.getDouble("latitude"),
-                        rs.getDouble("longitude"),
-                        rs.getInt("fill_level"),
-                        rs.getBoolean("overflow")
-                ),
-                threshold
-        );
+        progress.phase(PHASE_LOADING, 0);
+        List<BinPoint> bins = criticalBins(threshold, null, Set.of());
 
         // ✅ 2) Available drivers WITH location (so we can assign nearest)
         List<DriverRow> drivers = jdbc.query(
-                "SELECT id, latitude, longitude FROM driver WHERE available = true ORDER BY id",
+                "SELECT id, latitude, longitude, capacity_liters FROM driver WHERE available = true ORDER BY id",
                 (rs, rowNum) -> new DriverRow(
                         rs.getLong("id"),
                         rs.getDouble("latitude"),
-                        rs.getDouble("longitude")
+                        rs.getDouble("longitude"),
+                        capacityOrDefault(rs.getInt("capacity_liters"), rs.wasNull(), defaultVehicleCapacityLiters)
                 )
         );
 
         if (bins.isEmpty()) {
+            plan.emptyMessage = "No bins above threshold / overflow. Nothing to route.";
+            return plan;
+        }
+
+        if (drivers.isEmpty()) {
+            plan.emptyMessage = "No available drivers. Cannot generate routes.";
+            return plan;
+        }
+
+        // ✅ 3) Assign bins to drivers
+        checkCancelled(progress);
+        progress.phase(PHASE_ASSIGNING, 0);
+        boolean savings = ALGORITHM_SAVINGS.equals(algorithm);
+        Map<Long, List<BinPoint>> assignment = savings
+                ? assignBySavings(bins, drivers, maxStopsPerRoute)
+                : assignToNearestDriver(bins, drivers, maxStopsPerRoute);
+
+        for (List<BinPoint> assignedBins : assignment.values()) plan.binsUsed += assignedBins.size();
+
+        // ✅ 4) Order + improve each driver's bins (independent per driver, so optionally in parallel)
+        checkCancelled(progress);
+        List<DriverRow> routedDrivers = new ArrayList<>();
+        for (DriverRow d : drivers) {
+            List<BinPoint> assignedBins = assignment.get(d.id);
+            if (assignedBins != null && !assignedBins.isEmpty()) routedDrivers.add(d);
+        }
+        progress.phase(PHASE_ORDERING, routedDrivers.size());
+
+        final Map<Long, List<BinPoint>> assigned = assignment;
+
+        if (routingPool != null && routedDrivers.size() > 1) {
+            List<ForkJoinTask<PlannedRoute>> tasks = new ArrayList<>(routedDrivers.size());
+            for (DriverRow d : routedDrivers) {
+                tasks.add(routingPool.submit(() -> {
+                    checkCancelled(progress);
+                    PlannedRoute route = planDriverRoute(d, assigned.get(d.id), savings);
+                    progress.advance();
+                    return route;
+                }));
+            }
+            // joined in driver order, so the result never depends on which task finished first
+            try {
+                for (ForkJoinTask<PlannedRoute> task : tasks) {
+                    plan.routes.add(task.join());
+                }
+            } catch (RuntimeException e) {
+                for (ForkJoinTask<PlannedRoute> task : tasks) task.cancel(false);
+                throw e;
+            }
+        } else {
+            for (DriverRow d : routedDrivers) {
+                checkCancelled(progress);
+                plan.routes.add(planDriverRoute(d, assigned.get(d.id), savings));
+                progress.advance();
+            }
+        }
+
+        checkCancelled(progress);
+        return plan;
+    }
+
+    // ✅ Replaces the day's routes with the plan in one short write transaction
+    // (joins the caller's transaction when there is one)
+    public Map<String, Object> commitPlan(RoutePlan plan) {
+        return transactionTemplate.execute(status -> writePlan(plan));
+    }
+
+    private Map<String, Object> writePlan(RoutePlan plan) {
+        LocalDate routeDate = plan.routeDate;
+
+        // ✅ 0) Clear existing routes for that date (prevents duplicates)
+        clearRoutesForDate(routeDate);
+
+        if (plan.emptyMessage != null) {
             return Map.of(
-                    "message", "No bins above threshold / overflow. Nothing to route.",
+                    "message", plan.emptyMessage,
                     "routesCreated", 0,
                     "binsUsed", 0,
                     "routeDate", routeDate.toString()
             );
         }
 
-        if (drivers.isEmpty()) {
+        // ✅ 5) Insert all routes in one statement, then all ordered stops in one statement
+        List<PlannedRoute> planned = plan.routes;
+        double distanceBeforeMeters = 0;
+        double distanceAfterMeters = 0;
+        Long[] driverIds = new Long[planned.size()];
+        Double[] distanceKm = new Double[planned.size()];
+        for (int i = 0; i < planned.size(); i++) {
+            PlannedRoute route = planned.get(i);
+            driverIds[i] = route.driverId;
+            distanceBeforeMeters += route.distanceBeforeMeters;
+            distanceAfterMeters += route.distanceAfterMeters;
+
+            List<Long> stopIds = new ArrayList<>(route.stops.size());
+            for (BinPoint b : route.stops) stopIds.add(b.id);
+            distanceKm[i] = routeDistance.computeKm(stopIds);
+        }
+
+        // ✅ IMPORTANT: status is ASSIGNED (blue in UI until Start Collecting)
+        Map<Long, Long> routeIdByDriver = insertRoutes(driverIds, distanceKm, routeDate, "assigned");
+
+        List<Long> stopRouteIds = new ArrayList<>();
+        List<Long> stopBinIds = new ArrayList<>();
+        List<Integer> stopSequence = new ArrayList<>();
+        for (PlannedRoute route : planned) {
+            Long routeId = routeIdByDriver.get(route.driverId);
+            for (int seq = 0; seq < route.stops.size(); seq++) {
+                stopRouteIds.add(routeId);
+                stopBinIds.add(route.stops.get(seq).id);
+                stopSequence.add(seq);
+            }
+        }
+        insertStops(stopRouteIds, stopBinIds, stopSequence);
+
+        int routesCreated = planned.size();
+
+        return Map.of(
+                "message", "Auto-routes generated successfully! (replaced routes for " + routeDate + ")",
+                "routesCreated", routesCreated,
+                "binsUsed", plan.binsUsed,
+                "routeDate", routeDate.toString(),
+                "threshold", plan.threshold,
+                "maxStopsPerRoute", plan.maxStopsPerRoute,
+                "algorithm", plan.algorithm,
+                // total driving distance incl. the leg from each driver's start position
+                "distanceBeforeImprovementKm", distanceBeforeMeters / 1000.0,
+                "distanceAfterImprovementKm", distanceAfterMeters / 1000.0
+        );
+    }
+
+    private static void checkCancelled(GenerationProgress progress) {
+        if (progress.cancelled()) throw new CancellationException("Route generation cancelled");
+    }
+
+    // ✅ Incremental: place critical bins into the day's live routes (assigned / in_progress)
+    // by cheapest insertion. Nothing is cleared; only routes that receive a bin are rewritten.
+    // binIds (optional) limits the candidates; otherwise every critical bin not on a live route is tried.
+    @Transactional
+    public Map<String, Object> insertIntoActiveRoutes(LocalDate routeDate, int threshold, int maxStopsPerRoute,
+                                                      List<Long> binIds) {
+        // ✅ 1) Live routes of that date, locked so a concurrent collect / status change waits for us
+        List<LiveRoute> routes = jdbc.query(
+                "SELECT cr.id, d.id AS driver_id, d.latitude, d.longitude, d.capacity_liters " +
+                        "FROM collection_route cr " +
+                        "JOIN driver d ON d.id = cr.driver_id " +
+                        "WHERE cr.route_date = ? AND LOWER(cr.status) IN ('assigned','in_progress') " +
+                        "ORDER BY cr.id " +
+                        "FOR UPDATE OF cr",
+                (rs, rowNum) -> new LiveRoute(
+                        rs.getLong("id"),
+                        new DriverRow(
+                                rs.getLong("driver_id"),
+                                rs.getDouble("latitude"),
+                                rs.getDouble("longitude"),
+                                capacityOrDefault(rs.getInt("capacity_liters"), rs.wasNull(), defaultVehicleCapacityLiters)
+                        )
+                ),
+                Date.valueOf(routeDate)
+        );
+
+        if (routes.isEmpty()) {
             return Map.of(
-                    "message", "No available drivers. Cannot generate routes.",
-                    "routesCreated", 0,
-                    "binsUsed", 0,
+                    "message", "No active routes for " + routeDate + ". Use auto-generate instead.",
+                    "binsInserted", 0,
+                    "routesUpdated", List.of(),
                     "routeDate", routeDate.toString()
             );
         }
 
-        // ✅ 3) Assign each bin to the NEAREST driver (fuel/time saving)
+        // ✅ 2) Their stops in driving order
+        Map<Long, LiveRoute> routeById = new HashMap<>();
+        for (LiveRoute r : routes) routeById.put(r.routeId, r);
+
+        jdbc.query(
+                "SELECT crb.route_id, crb.bin_id " +
+                        "FROM collection_route_bins crb " +
+                        "WHERE crb.route_id = ANY(?) " +
+                        "ORDER BY crb.route_id, crb.stop_sequence NULLS LAST, crb.bin_id",
+                rs -> {
+                    BinPoint b = binPoint(rs.getLong("bin_id"));
+                    if (b != null) routeById.get(rs.getLong("route_id")).stops.add(b);
+                },
+                new SqlArrayValue("bigint", routeById.keySet().toArray())
+        );
+
+        // ✅ 3) Candidates: critical bins that are not on any live route yet (most urgent first)
+        Set<Long> onLiveRoutes = new HashSet<>(jdbc.queryForList(
+                "SELECT DISTINCT crb.bin_id " +
+                        "FROM collection_route_bins crb " +
+                        "JOIN collection_route cr ON cr.id = crb.route_id " +
+                        "WHERE LOWER(cr.status) IN ('assigned','in_progress')",
+                Long.class
+        ));
+        List<BinPoint> candidates = criticalBins(threshold,
+                (binIds != null && !binIds.isEmpty()) ? new HashSet<>(binIds) : null, onLiveRoutes);
+
+        // ✅ 4) Node layout: 0..R-1 = trucks (anchors), then every existing stop, then the candidates
+        int r = routes.size();
+        List<BinPoint> binNodes = new ArrayList<>();
+        for (LiveRoute route : routes) binNodes.addAll(route.stops);
+        binNodes.addAll(candidates);
+
+        int m = binNodes.size();
+        long[] nodeBinIds = new long[m];
+        double[] nodeLat = new double[r + m];
+        double[] nodeLng = new double[r + m];
+        for (int i = 0; i < r; i++) {
+            nodeLat[i] = routes.get(i).driver.lat;
+            nodeLng[i] = routes.get(i).driver.lng;
+        }
+        for (int i = 0; i < m; i++) {
+            BinPoint b = binNodes.get(i);
+            nodeBinIds[i] = b.id;
+            nodeLat[r + i] = b.lat;
+            nodeLng[r + i] = b.lng;
+        }
+
+        NodeDistance binDist = distanceMatrix.view(nodeBinIds,
+                Arrays.copyOfRange(nodeLat, r, r + m), Arrays.copyOfRange(nodeLng, r, r + m));
+        NodeDistance dist = (a, b) -> {
+            if (a == b) return 0;
+            if (a < r || b < r) return GeoMath.haversine(nodeLat[a], nodeLng[a], nodeLat[b], nodeLng[b]);
+            return binDist.between(a - r, b - r);
+        };
+
+        // Collected stops (emptied: fill 0, no overflow) stay in front. Their pickup volume is no longer
+        // known, so they count with their full container volume against the truck's capacity.
+        List<CheapestInsertion.Route> plans = new ArrayList<>(r);
+        int node = r;
+        for (int i = 0; i < r; i++) {
+            LiveRoute route = routes.get(i);
+            int[] nodes = new int[route.stops.size() + 1];
+            nodes[0] = i;
+            int lockedPrefix = 1;
+            double load = 0;
+            for (int k = 0; k < route.stops.size(); k++) {
+                BinPoint b = route.stops.get(k);
+                nodes[k + 1] = node++;
+                boolean collected = b.fill == 0 && !b.overflow;
+                if (collected) {
+                    lockedPrefix = k + 2;
+                    load += b.capacityLiters;
+                } else {
+                    load += estimateVolumeLiters(b);
+                }
+            }
+            plans.add(new CheapestInsertion.Route(nodes, lockedPrefix, load, route.driver.capacityLiters, maxStopsPerRoute));
+        }
+
+        // ✅ 5) Cheapest insertion, one candidate at a time
+        List<Long> unplaced = new ArrayList<>();
+        int inserted = 0;
+        double addedMeters = 0;
+        for (BinPoint b : candidates) {
+            double added = CheapestInsertion.insert(plans, node++, estimateVolumeLiters(b), dist);
+            if (Double.isNaN(added)) {
+                unplaced.add(b.id);
+            } else {
+                inserted++;
+                addedMeters += added;
+            }
+        }
+
+        // ✅ 6) Rewrite the stop rows of the changed routes only
+        List<Long> changedRouteIds = new ArrayList<>();
+        List<Long> stopRouteIds = new ArrayList<>();
+        List<Long> stopBinIds = new ArrayList<>();
+        List<Integer> stopSequence = new ArrayList<>();
+        for (int i = 0; i < r; i++) {
+            CheapestInsertion.Route plan = plans.get(i);
+            if (!plan.changed()) continue;
+
+            long routeId = routes.get(i).routeId;
+            changedRouteIds.add(routeId);
+            int[] nodes = plan.nodes();
+            for (int k = 1; k < nodes.length; k++) {
+                stopRouteIds.add(routeId);
+                stopBinIds.add(binNodes.get(nodes[k] - r).id);
+                stopSequence.add(k - 1);
+            }
+        }
+
+        if (!changedRouteIds.isEmpty()) {
+            jdbc.update(
+                    "DELETE FROM collection_route_bins WHERE route_id = ANY(?)",
+                    new SqlArrayValue("bigint", changedRouteIds.toArray())
+            );
+            insertStops(stopRouteIds, stopBinIds, stopSequence);
+            routeDistance.refresh(changedRouteIds);
+            events.publishEvent(RouteChangedEvent.routes(changedRouteIds));
+        }
+
+        return Map.of(
+                "message", inserted + " bin(s) inserted into active routes for " + routeDate,
+                "routeDate", routeDate.toString(),
+                "threshold", threshold,
+                "maxStopsPerRoute", maxStopsPerRoute,
+                "candidates", candidates.size(),
+                "binsInserted", inserted,
+                "unplacedBinIds", unplaced,
+                "routesUpdated", changedRouteIds,
+                "addedDistanceKm", addedMeters / 1000.0
+        );
+    }
+
+    // ✅ Bins at/above the threshold or overflowing, from the in-memory state (most urgent first).
+    // only: restrict to these ids (null = all); exclude: skip these ids
+    private List<BinPoint> criticalBins(int threshold, Set<Long> only, Set<Long> exclude) {
+        List<BinPoint> bins = new ArrayList<>();
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) -> {
+            if (fillLevel < threshold && !overflow) return;
+            if (only != null && !only.contains(id)) return;
+            if (exclude.contains(id)) return;
+            bins.add(new BinPoint(id, latitude, longitude, fillLevel, overflow,
+                    capacityOrDefault(capacityLiters, false, defaultBinCapacityLiters)));
+        });
+        bins.sort(Comparator
+                .comparing((BinPoint b) -> !b.overflow)
+                .thenComparing(b -> -b.fill)
+                .thenComparingLong(b -> b.id));
+        return bins;
+    }
+
+    private BinPoint binPoint(long binId) {
+        return binState.get(binId)
+                .map(s -> new BinPoint(s.id(), s.latitude(), s.longitude(), s.fillLevel(), s.overflow(),
+                        capacityOrDefault(s.capacityLiters(), false, defaultBinCapacityLiters)))
+                .orElse(null);
+    }
+
+    // ✅ Greedy: each bin (most urgent first) goes to the NEAREST driver that still has room (fuel/time saving)
+    private Map<Long, List<BinPoint>> assignToNearestDriver(List<BinPoint> bins, List<DriverRow> drivers, int maxStopsPerRoute) {
         Map<Long, List<BinPoint>> assignment = new LinkedHashMap<>();
-        Map<Long, DriverState> driverState = new LinkedHashMap<>();
+        List<DriverState> states = new ArrayList<>(drivers.size());
 
         for (DriverRow d : drivers) {
             assignment.put(d.id, new ArrayList<>());
-            driverState.put(d.id, new DriverState(d.id, d.lat, d.lng));
+            states.add(new DriverState(d.id, d.lat, d.lng));
         }
 
-        int binsUsed = 0;
-
-        for (BinPoint b : bins) {
-            Long bestDriverId = null;
-            double bestDistance = Double.MAX_VALUE;
-
-            for (DriverState st : driverState.values()) {
-                if (st.stops >= maxStopsPerRoute) continue; // capacity reached
+        // Spatial index over the drivers' moving positions (full drivers are dropped from it),
+        // so each lookup only touches the grid cells around the bin instead of every driver.
+        GeoGridIndex driverIndex = buildDriverIndex(states, bins);
 
-                double dist = haversine(st.curLat, st.curLng, b.lat, b.lng);
-                if (dist < bestDistance) {
-                    bestDistance = dist;
-                    bestDriverId = st.driverId;
-                }
+        if (maxStopsPerRoute > 0) {
+            for (int i = 0; i < states.size(); i++) {
+                DriverState st = states.get(i);
+                driverIndex.insert(i, st.curLat, st.curLng);
             }
+        }
 
-            if (bestDriverId == null) {
+        for (BinPoint b : bins) {
+            int best = driverIndex.nearest(b.lat, b.lng);
+
+            if (best < 0) {
                 // all drivers are full (maxStops reached)
-                continue;
+                break;
             }
 
-            assignment.get(bestDriverId).add(b);
+            DriverState st = states.get(best);
+            assignment.get(st.driverId).add(b);
 
             // ✅ update driver's "current position" to this bin,
             // so next assignments naturally become a nearby cluster
-            DriverState st = driverState.get(bestDriverId);
             st.curLat = b.lat;
             st.curLng = b.lng;
             st.stops++;
 
-            binsUsed++;
+            if (st.stops >= maxStopsPerRoute) {
+                driverIndex.remove(best); // capacity reached
+            } else {
+                driverIndex.move(best, st.curLat, st.curLng);
+            }
         }
 
         // remove empty driver assignments
-        assignment = assignment.entrySet().stream()
+        return assignment.entrySet().stream()
                 .filter(e -> !e.getValue().isEmpty())
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
@@ -162,38 +644,185 @@ public class AutoRouteService {
                         (a, b) -> a,
                         LinkedHashMap::new
                 ));
+    }
 
-        int routesCreated = 0;
+    // ✅ Capacitated: Clarke-Wright savings routes (bin volume vs truck capacity), then one route per driver
+    private Map<Long, List<BinPoint>> assignBySavings(List<BinPoint> bins, List<DriverRow> drivers, int maxStopsPerRoute) {
+        int n = bins.size();
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        double[] load = new double[n];
+        for (int i = 0; i < n; i++) {
+            BinPoint b = bins.get(i);
+            lat[i] = b.lat;
+            lng[i] = b.lng;
+            load[i] = estimateVolumeLiters(b);
+        }
 
-        // ✅ 4) Insert routes + ordered bins (nearest neighbor ordering per driver)
+        // savings are measured from the fleet's centroid (trucks start from their own positions)
+        double depotLat = 0, depotLng = 0, maxCapacity = 0;
         for (DriverRow d : drivers) {
-            List<BinPoint> assignedBins = assignment.get(d.id);
-            if (assignedBins == null || assignedBins.isEmpty()) continue;
+            depotLat += d.lat;
+            depotLng += d.lng;
+            maxCapacity = Math.max(maxCapacity, d.capacityLiters);
+        }
+        depotLat /= drivers.size();
+        depotLng /= drivers.size();
+
+        List<int[]> routes = savingsRouter.build(lat, lng, load, depotLat, depotLng, maxCapacity, maxStopsPerRoute);
+
+        // most urgent routes pick their truck first: overflowing stops, then total load
+        int[] overflowCount = new int[routes.size()];
+        double[] routeLoad = new double[routes.size()];
+        Integer[] order = new Integer[routes.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            order[r] = r;
+            for (int i : routes.get(r)) {
+                if (bins.get(i).overflow) overflowCount[r]++;
+                routeLoad[r] += load[i];
+            }
+        }
+        Arrays.sort(order, (x, y) -> {
+            if (overflowCount[x] != overflowCount[y]) return Integer.compare(overflowCount[y], overflowCount[x]);
+            if (routeLoad[x] != routeLoad[y]) return Double.compare(routeLoad[y], routeLoad[x]);
+            return Integer.compare(x, y);
+        });
+
+        boolean[] taken = new boolean[drivers.size()];
+        Map<Long, List<BinPoint>> byDriver = new HashMap<>();
+
+        for (int r : order) {
+            int[] path = routes.get(r);
+            int first = path[0];
+            int last = path[path.length - 1];
+
+            // nearest free truck that can hold the whole route; otherwise the biggest free one
+            int best = -1;
+            double bestDist = Double.MAX_VALUE;
+            int biggest = -1;
+            for (int k = 0; k < drivers.size(); k++) {
+                if (taken[k]) continue;
+                DriverRow d = drivers.get(k);
+                if (biggest < 0 || d.capacityLiters > drivers.get(biggest).capacityLiters) biggest = k;
+                if (d.capacityLiters < routeLoad[r]) continue;
+
+                double dist = Math.min(
+                        GeoMath.haversine(d.lat, d.lng, lat[first], lng[first]),
+                        GeoMath.haversine(d.lat, d.lng, lat[last], lng[last])
+                );
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    best = k;
+                }
+            }
+            if (best < 0) best = biggest;
+            if (best < 0) break; // every truck already has a route
+
+            DriverRow d = drivers.get(best);
+
+            // start from the end of the route that is closer to the truck, stop when it is full
+            boolean reversed = GeoMath.haversine(d.lat, d.lng, lat[last], lng[last])
+                    < GeoMath.haversine(d.lat, d.lng, lat[first], lng[first]);
+            List<BinPoint> stops = new ArrayList<>(path.length);
+            double carried = 0;
+            for (int m = 0; m < path.length; m++) {
+                int i = path[reversed ? path.length - 1 - m : m];
+                if (carried + load[i] > d.capacityLiters) break;
+                carried += load[i];
+                stops.add(bins.get(i));
+            }
+            if (stops.isEmpty()) continue;
 
-            // Order bins to reduce distance:
-            List<BinPoint> ordered = nearestNeighborOrderFromStart(assignedBins, d.lat, d.lng);
+            taken[best] = true;
+            byDriver.put(d.id, stops);
+        }
 
-            // ✅ IMPORTANT: status is ASSIGNED (blue in UI until Start Collecting)
-            Long routeId = insertRouteAndReturnId(d.id, routeDate, "assigned");
+        Map<Long, List<BinPoint>> assignment = new LinkedHashMap<>();
+        for (DriverRow d : drivers) {
+            List<BinPoint> stops = byDriver.get(d.id);
+            if (stops != null) assignment.put(d.id, stops);
+        }
+        return assignment;
+    }
 
-            for (BinPoint bp : ordered) {
-                jdbc.update(
-                        "INSERT INTO collection_route_bins (route_id, bin_id) VALUES (?, ?)",
-                        routeId, bp.id
-                );
-            }
+    // Load estimate from the sensor: fill percentage of the container volume (overflow = completely full)
+    private double estimateVolumeLiters(BinPoint b) {
+        int pct = b.overflow ? 100 : Math.max(0, Math.min(100, b.fill));
+        return b.capacityLiters * pct / 100.0;
+    }
+
+    private static int capacityOrDefault(int value, boolean wasNull, int defaultValue) {
+        return (wasNull || value <= 0) ? defaultValue : value;
+    }
 
-            routesCreated++;
+    // Nearest-neighbor order from the driver's position (or the given order when keepOrder),
+    // then 2-opt / Or-opt (time-boxed per route).
+    // Pure computation on its inputs, safe to run for several drivers at once.
+    private PlannedRoute planDriverRoute(DriverRow d, List<BinPoint> assignedBins, boolean keepOrder) {
+        int n = assignedBins.size();
+
+        long[] binIds = new long[n];
+        double[] binLat = new double[n];
+        double[] binLng = new double[n];
+        for (int i = 0; i < n; i++) {
+            BinPoint b = assignedBins.get(i);
+            binIds[i] = b.id;
+            binLat[i] = b.lat;
+            binLng[i] = b.lng;
         }
 
-        return Map.of(
-                "message", "Auto-routes generated successfully! (replaced routes for " + routeDate + ")",
-                "routesCreated", routesCreated,
-                "binsUsed", binsUsed,
-                "routeDate", routeDate.toString(),
-                "threshold", threshold,
-                "maxStopsPerRoute", maxStopsPerRoute
-        );
+        // node 0 = driver start, node i = assignedBins[i - 1]; bin legs come from the distance matrix
+        NodeDistance binDist = distanceMatrix.view(binIds, binLat, binLng);
+        double[] fromStart = new double[n];
+        GeoMath.haversineFrom(d.lat, d.lng, GeoMath.cosLat(d.lat), binLat, binLng, GeoMath.cosLat(binLat), 0, n, fromStart);
+        NodeDistance dist = (a, b) -> {
+            if (a == b) return 0;
+            if (a == 0) return fromStart[b - 1];
+            if (b == 0) return fromStart[a - 1];
+            return binDist.between(a - 1, b - 1);
+        };
+
+        int[] tour;
+        if (keepOrder) {
+            tour = new int[n + 1];
+            for (int i = 0; i <= n; i++) tour[i] = i;
+        } else {
+            tour = nearestNeighborOrderFromStart(n + 1, dist);
+        }
+        double before = RouteImprover.pathLength(tour, dist);
+
+        if (improveEnabled) {
+            // move count bounds the search (deterministic); the time budget is only a safety cap, off at 0
+            long deadline = improveBudgetMs > 0 ? System.nanoTime() + improveBudgetMs * 1_000_000L
+                    : RouteImprover.NO_DEADLINE;
+            tour = routeImprover.improve(tour, dist, deadline);
+        }
+
+        List<BinPoint> ordered = new ArrayList<>(n);
+        for (int i = 1; i < tour.length; i++) ordered.add(assignedBins.get(tour[i] - 1));
+
+        return new PlannedRoute(d.id, ordered, before, RouteImprover.pathLength(tour, dist));
+    }
+
+    // Index bounds must cover every position a driver can take: its start or any bin
+    private GeoGridIndex buildDriverIndex(List<DriverState> states, List<BinPoint> bins) {
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+
+        for (DriverState st : states) {
+            minLat = Math.min(minLat, st.curLat);
+            maxLat = Math.max(maxLat, st.curLat);
+            minLng = Math.min(minLng, st.curLng);
+            maxLng = Math.max(maxLng, st.curLng);
+        }
+        for (BinPoint b : bins) {
+            minLat = Math.min(minLat, b.lat);
+            maxLat = Math.max(maxLat, b.lat);
+            minLng = Math.min(minLng, b.lng);
+            maxLng = Math.max(maxLng, b.lng);
+        }
+
+        return new GeoGridIndex(states.size(), minLat, maxLat, minLng, maxLng);
     }
 
     // ✅ Deletes routes + junction rows for that date
@@ -211,61 +840,75 @@ public class AutoRouteService {
                 "DELETE FROM collection_route WHERE route_date = ?",
                 Date.valueOf(routeDate)
         );
+
+        // the whole day is replaced (cleared and, unless the plan is empty, re-inserted)
+        events.publishEvent(RouteChangedEvent.date(routeDate));
     }
 
-    private Long insertRouteAndReturnId(long driverId, LocalDate routeDate, String status) {
-        return jdbc.queryForObject(
-                "INSERT INTO collection_route (created_at, status, driver_id, route_date) " +
-                        "VALUES (NOW(), ?, ?, ?) RETURNING id",
-                Long.class,
+    // One INSERT for every route of the plan (a driver gets at most one route per generation)
+    private Map<Long, Long> insertRoutes(Long[] driverIds, Double[] distanceKm, LocalDate routeDate, String status) {
+        Map<Long, Long> routeIdByDriver = new HashMap<>();
+        if (driverIds.length == 0) return routeIdByDriver;
+
+        jdbc.query(
+                "INSERT INTO collection_route (created_at, status, driver_id, route_date, distance_km) " +
+                        "SELECT NOW(), ?, t.driver_id, ?, t.distance_km " +
+                        "FROM unnest(?::bigint[], ?::float8[]) WITH ORDINALITY AS t(driver_id, distance_km, ord) " +
+                        "ORDER BY t.ord " +
+                        "RETURNING id, driver_id",
+                rs -> {
+                    routeIdByDriver.put(rs.getLong("driver_id"), rs.getLong("id"));
+                },
                 status,
-                driverId,
-                Date.valueOf(routeDate)
+                Date.valueOf(routeDate),
+                new SqlArrayValue("bigint", (Object[]) driverIds),
+                new SqlArrayValue("float8", (Object[]) distanceKm)
         );
+        return routeIdByDriver;
     }
 
-    // ✅ Order bins using nearest neighbor, starting from driver's current location
-    private List<BinPoint> nearestNeighborOrderFromStart(List<BinPoint> bins, double startLat, double startLng) {
-        if (bins.size() <= 2) return bins;
+    // One INSERT for all stops, with their planned position in stop_sequence
+    private void insertStops(List<Long> routeIds, List<Long> binIds, List<Integer> sequence) {
+        if (routeIds.isEmpty()) return;
+
+        jdbc.update(
+                "INSERT INTO collection_route_bins (route_id, bin_id, stop_sequence) " +
+                        "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::int[])",
+                new SqlArrayValue("bigint", routeIds.toArray()),
+                new SqlArrayValue("bigint", binIds.toArray()),
+                new SqlArrayValue("integer", sequence.toArray())
+        );
+    }
 
-        List<BinPoint> remaining = new ArrayList<>(bins);
-        List<BinPoint> ordered = new ArrayList<>();
+    // ✅ Order bins using nearest neighbor, starting from driver's current location (node 0)
+    // (public static so OrderingBenchmark measures this exact construction)
+    public static int[] nearestNeighborOrderFromStart(int nodes, NodeDistance dist) {
+        int[] tour = new int[nodes];
+        for (int i = 0; i < nodes; i++) tour[i] = i;
+        if (nodes <= 3) return tour; // start + up to 2 bins: keep assignment order
 
-        double curLat = startLat;
-        double curLng = startLng;
+        boolean[] used = new boolean[nodes];
+        used[0] = true;
+        int cur = 0;
 
-        while (!remaining.isEmpty()) {
-            BinPoint next = null;
+        for (int step = 1; step < nodes; step++) {
+            int next = -1;
             double best = Double.MAX_VALUE;
 
-            for (BinPoint candidate : remaining) {
-                double dist = haversine(curLat, curLng, candidate.lat, candidate.lng);
-                if (dist < best) {
-                    best = dist;
+            for (int candidate = 1; candidate < nodes; candidate++) {
+                if (used[candidate]) continue;
+                double dd = dist.between(cur, candidate);
+                if (dd < best) {
+                    best = dd;
                     next = candidate;
                 }
             }
 
-            ordered.add(next);
-            remaining.remove(next);
-
-            curLat = next.lat;
-            curLng = next.lng;
+            tour[step] = next;
+            used[next] = true;
+            cur = next;
         }
 
-        return ordered;
-    }
-
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371000; // meters
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+        return tour;
     }
 }
@@ -0,0 +1,241 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.dto.BinFillReading;
+import com.smartwaste.backend.util.LatencyHistogram;
+import com.smartwaste.backend.util.LongIntHashMap;
+import com.smartwaste.backend.util.ReadingRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous sensor ingest: request threads only put readings into a bounded {@link ReadingRing}
+ * ({@code bin-ingest.queue-capacity}) and return; when it is full the batch is refused (HTTP 429).
+ * <p>
+ * One writer thread drains the ring every {@code bin-ingest.window-ms}, keeps only the latest reading per
+ * bin from what it drained (by measured time), and applies the rest to {@link BinStateStore} under one
+ * write lock, with the same route-lock rule as {@link BinIngestService}. The table follows through the
+ * store's batched flush.
+ */
+@Service
+public class BinIngestPipeline {
+
+    private final BinStateStore binState;
+    private final ActiveRouteBins activeRouteBins;
+    private final ReadingRing ring;
+    private final long windowNanos;
+    private final int drainBatchSize;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    // stats
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rejectedBatches = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder ignoredLocked = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    // queued -> applied
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // writer-thread batch buffers (coalesced: one entry per bin)
+    private final LongIntHashMap batchIndex;
+    private final long[] batchIds;
+    private final int[] batchLevels;
+    private final long[] batchMeasuredAt;
+    private final long[] drainedEnqueuedAt;
+    private int batchSize;
+    private int drained;
+
+    public BinIngestPipeline(
+            BinStateStore binState,
+            ActiveRouteBins activeRouteBins,
+            @Value("${bin-ingest.queue-capacity:65536}") int queueCapacity,
+            @Value("${bin-ingest.window-ms:50}") long windowMs,
+            @Value("${bin-ingest.drain-batch-size:8192}") int drainBatchSize
+    ) {
+        this.binState = binState;
+        this.activeRouteBins = activeRouteBins;
+        this.ring = new ReadingRing(queueCapacity);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, windowMs));
+        this.drainBatchSize = Math.max(1, drainBatchSize);
+
+        this.batchIndex = new LongIntHashMap(this.drainBatchSize, -1);
+        this.batchIds = new long[this.drainBatchSize];
+        this.batchLevels = new int[this.drainBatchSize];
+        this.batchMeasuredAt = new long[this.drainBatchSize];
+        this.drainedEnqueuedAt = new long[this.drainBatchSize];
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        writer = new Thread(this::writeLoop, "bin-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ✅ Shutdown: stop taking readings, apply what is queued (before the store's final flush)
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a batch of readings, whole or not at all.
+     *
+     * @return false when the queue has no room for the batch (the caller should retry later)
+     * @throws IllegalArgumentException for an empty batch or an invalid reading (nothing is queued)
+     */
+    public boolean submit(List<BinFillReading> readings) {
+        if (readings == null || readings.isEmpty()) {
+            throw new IllegalArgumentException("No readings");
+        }
+        int n = readings.size();
+        long[] ids = new long[n];
+        int[] levels = new int[n];
+        long[] measured = new long[n];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            BinFillReading r = readings.get(i);
+            if (r == null || r.getBinId() == null || r.getLevel() == null || !isValidLevel(r.getLevel())) {
+                throw new IllegalArgumentException("Reading " + i + ": binId and a level of 0-100 are required");
+            }
+            ids[i] = r.getBinId();
+            levels[i] = r.getLevel();
+            measured[i] = r.getTimestamp() == null ? now : r.getTimestamp().toEpochMilli();
+        }
+
+        return submit(ids, levels, measured, n);
+    }
+
+    /**
+     * Queues the first {@code n} readings of already validated arrays (binary listener path), whole or
+     * not at all. The arrays are copied; the caller may reuse them.
+     *
+     * @return false when the queue has no room for them
+     */
+    public boolean submit(long[] binIds, int[] levels, long[] measuredAt, int n) {
+        if (n <= 0) return true;
+        if (!running || !ring.offer(binIds, levels, measuredAt, 0, n)) {
+            rejected.add(n);
+            rejectedBatches.increment();
+            return false;
+        }
+        accepted.add(n);
+        return true;
+    }
+
+    public static boolean isValidLevel(int level) {
+        return level >= 0 && level <= 100;
+    }
+
+    public int queueDepth() {
+        return ring.size();
+    }
+
+    public int queueCapacity() {
+        return ring.capacity();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("queueDepth", ring.size());
+        s.put("queueCapacity", ring.capacity());
+        s.put("accepted", accepted.sum());
+        s.put("rejected", rejected.sum());
+        s.put("rejectedBatches", rejectedBatches.sum());
+        s.put("coalesced", coalesced.sum());
+        s.put("applied", applied.sum());
+        s.put("ignoredLocked", ignoredLocked.sum());
+        s.put("notFound", notFound.sum());
+        s.put("writeBatches", batches.sum());
+        s.put("latencyP50Ms", latency.percentileMs(0.50));
+        s.put("latencyP99Ms", latency.percentileMs(0.99));
+        s.put("latencyMaxMs", latency.maxMs());
+        return s;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            boolean stopping = !running;
+            // wait out the window unless a full batch is already waiting
+            if (!stopping && ring.size() < drainBatchSize) LockSupport.parkNanos(windowNanos);
+
+            try {
+                int n;
+                do {
+                    n = ring.drain(drainBatchSize, this::coalesce);
+                    if (n > 0) applyBatch();
+                } while (n == drainBatchSize);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ BinIngestPipeline batch failed: " + e.getMessage());
+                batchIndex.clear();
+                batchSize = 0;
+                drained = 0;
+            }
+
+            if (stopping && ring.size() == 0) return;
+        }
+    }
+
+    // writer thread: latest measured reading of each bin wins (ties: the later one)
+    private void coalesce(long binId, int level, long measuredAt, long enqueuedAtNanos) {
+        drainedEnqueuedAt[drained++] = enqueuedAtNanos;
+        int i = batchIndex.get(binId);
+        if (i < 0) {
+            i = batchSize++;
+            batchIndex.put(binId, i);
+            batchIds[i] = binId;
+        } else if (measuredAt < batchMeasuredAt[i]) {
+            return;
+        }
+        batchLevels[i] = level;
+        batchMeasuredAt[i] = measuredAt;
+    }
+
+    // writer thread
+    private void applyBatch() {
+        long[] ids = Arrays.copyOf(batchIds, batchSize);
+        int[] levels = Arrays.copyOf(batchLevels, batchSize);
+        byte[] outcomes = binState.applyReadings(ids, levels, activeRouteBins::contains,
+                BinIngestService.OVERFLOW_LEVEL);
+
+        long now = System.nanoTime();
+        for (int k = 0; k < drained; k++) latency.record((now - drainedEnqueuedAt[k]) / 1000);
+
+        for (byte o : outcomes) {
+            switch (o) {
+                case BinStateStore.READING_APPLIED -> applied.increment();
+                case BinStateStore.READING_LOCKED -> ignoredLocked.increment();
+                default -> notFound.increment();
+            }
+        }
+        coalesced.add(drained - batchSize);
+        batches.increment();
+
+        batchIndex.clear();
+        batchSize = 0;
+        drained = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.dto.BinFillReading;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Sensor fill readings, one at a time or in batches. Readings go to {@link BinStateStore} (the table
+ * follows with its batched flush); the route lock is a lookup in {@link ActiveRouteBins}.
+ * <p>
+ * Route lock: while a bin is on an assigned / in-progress route, readings may lower its fill but not raise
+ * it (the driver is on the way; only collection changes it).
+ */
+@Service
+public class BinIngestService {
+
+    public static final int OVERFLOW_LEVEL = 95;
+
+    public static final String OUTCOME_UPDATED = "updated";
+    public static final String OUTCOME_LOCKED = "ignored_locked";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_INVALID = "invalid";
+
+    private final BinStateStore binState;
+    private final ActiveRouteBins activeRouteBins;
+    private final int maxBatchSize;
+
+    public BinIngestService(
+            BinStateStore binState,
+            ActiveRouteBins activeRouteBins,
+            @Value("${bin-ingest.max-batch-size:50000}") int maxBatchSize
+    ) {
+        this.binState = binState;
+        this.activeRouteBins = activeRouteBins;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public record ReadingResult(Long binId, String outcome) {
+    }
+
+    // results are in request order
+    public record BatchResult(int received, int updated, int ignoredLocked, int notFound, int invalid,
+                              List<ReadingResult> results) {
+    }
+
+    // ✅ Is the bin on an assigned / in_progress route? (memory lookup, no query)
+    public boolean isLocked(long binId) {
+        return activeRouteBins.contains(binId);
+    }
+
+    /**
+     * ✅ Applies a batch in measurement order (stable: readings with equal or no timestamps keep their
+     * order), so the last measured level of each bin wins.
+     *
+     * @throws IllegalArgumentException for an empty or oversized batch
+     */
+    public BatchResult ingest(List<BinFillReading> readings) {
+        if (readings == null || readings.isEmpty()) {
+            throw new IllegalArgumentException("No readings");
+        }
+        if (readings.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " readings per batch");
+        }
+
+        int n = readings.size();
+        String[] outcomes = new String[n];
+        Instant now = Instant.now();
+
+        List<Integer> valid = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BinFillReading r = readings.get(i);
+            if (r == null || r.getBinId() == null || r.getLevel() == null || r.getLevel() < 0 || r.getLevel() > 100) {
+                outcomes[i] = OUTCOME_INVALID;
+            } else {
+                valid.add(i);
+            }
+        }
+        valid.sort(Comparator.comparing(i -> {
+            Instant t = readings.get(i).getTimestamp();
+            return t == null ? now : t;
+        }));
+
+        long[] binIds = new long[valid.size()];
+        int[] levels = new int[valid.size()];
+        for (int k = 0; k < valid.size(); k++) {
+            BinFillReading r = readings.get(valid.get(k));
+            binIds[k] = r.getBinId();
+            levels[k] = r.getLevel();
+        }
+
+        byte[] applied = binState.applyReadings(binIds, levels, activeRouteBins::contains, OVERFLOW_LEVEL);
+
+        for (int k = 0; k < applied.length; k++) {
+            outcomes[valid.get(k)] = switch (applied[k]) {
+                case BinStateStore.READING_APPLIED -> OUTCOME_UPDATED;
+                case BinStateStore.READING_LOCKED -> OUTCOME_LOCKED;
+                default -> OUTCOME_NOT_FOUND;
+            };
+        }
+
+        int updated = 0, ignoredLocked = 0, notFound = 0, invalid = 0;
+        List<ReadingResult> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BinFillReading r = readings.get(i);
+            results.add(new ReadingResult(r == null ? null : r.getBinId(), outcomes[i]));
+            switch (outcomes[i]) {
+                case OUTCOME_UPDATED -> updated++;
+                case OUTCOME_LOCKED -> ignoredLocked++;
+                case OUTCOME_NOT_FOUND -> notFound++;
+                default -> invalid++;
+            }
+        }
+        return new BatchResult(n, updated, ignoredLocked, notFound, invalid, results);
+    }
+}
@@ -3,24 +3,67 @@ package com.smartwaste.backend.service;
 import com.smartwaste.backend.dto.BinDTO;
 import com.smartwaste.backend.entity.Bin;
 import com.smartwaste.backend.repository.BinRepository;
+import com.smartwaste.backend.util.BinFeedCodec;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class BinService {
 
     private final BinRepository binRepository;
+    private final DistanceMatrixService distanceMatrix;
+    private final RouteDistanceService routeDistance;
+    private final BinStateStore binState;
 
-    // Get all bins
+    // Get all bins (current fill levels come from the in-memory state)
     public List<BinDTO> getAllBins() {
-        return binRepository.findAll()
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        List<BinDTO> bins = new ArrayList<>(binState.size());
+        binState.forEach((id, latitude, longitude, fillLevel, overflow, capacityLiters) ->
+                bins.add(toDTO(id, latitude, longitude, fillLevel, overflow, capacityLiters)));
+        return bins;
+    }
+
+    // Change version of the bins (every create / update / delete / fill change bumps it)
+    public long getVersion() {
+        return binState.version();
+    }
+
+    // Bins changed after a version: {version, full, bins, removed}. When the version is too old for a
+    // delta, full = true and bins holds every bin.
+    public Map<String, Object> getBinsChangedSince(long since) {
+        List<BinDTO> bins = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        long version = binState.forEachChangedSince(since,
+                (id, latitude, longitude, fillLevel, overflow, capacityLiters) ->
+                        bins.add(toDTO(id, latitude, longitude, fillLevel, overflow, capacityLiters)),
+                removed::add);
+
+        boolean full = version < 0;
+        Map<String, Object> delta = new LinkedHashMap<>();
+        if (full) {
+            // version first: a change made while listing is sent again next time, never lost
+            version = binState.version();
+            bins.clear();
+            bins.addAll(getAllBins());
+        }
+        delta.put("version", version);
+        delta.put("full", full);
+        delta.put("bins", bins);
+        delta.put("removed", removed);
+        return delta;
+    }
+
+    // Same list in the compact binary feed format (no per-bin objects)
+    public byte[] getAllBinsEncoded() {
+        BinFeedCodec feed = new BinFeedCodec(binState.size(), true);
+        binState.forEach(feed::add);
+        return feed.encode();
     }
 
     // Create new bin
@@ -30,8 +73,11 @@ public class BinService {
                 .longitude(dto.getLongitude())
                 .fillLevel(dto.getFillLevel())
                 .overflow(dto.isOverflow())
+                .capacityLiters(dto.getCapacityLiters())
                 .build();
         Bin saved = binRepository.save(bin);
+        mirror(saved);
+        distanceMatrix.onBinSaved(saved.getId(), saved.getLatitude(), saved.getLongitude());
         return toDTO(saved);
     }
 
@@ -39,17 +85,41 @@ public class BinService {
     public BinDTO updateBin(Long id, BinDTO dto) {
         Bin bin = binRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Bin not found"));
+        boolean moved = bin.getLatitude() != dto.getLatitude() || bin.getLongitude() != dto.getLongitude();
         bin.setLatitude(dto.getLatitude());
         bin.setLongitude(dto.getLongitude());
         bin.setFillLevel(dto.getFillLevel());
         bin.setOverflow(dto.isOverflow());
+        bin.setCapacityLiters(dto.getCapacityLiters());
         Bin updated = binRepository.save(bin);
+        mirror(updated);
+        distanceMatrix.onBinSaved(updated.getId(), updated.getLatitude(), updated.getLongitude());
+        if (moved) routeDistance.refreshRoutesWithBin(updated.getId());
         return toDTO(updated);
     }
 
     // Delete bin
     public void deleteBin(Long id) {
         binRepository.deleteById(id);
+        binState.remove(id);
+        distanceMatrix.onBinDeleted(id);
+    }
+
+    private void mirror(Bin bin) {
+        binState.upsert(bin.getId(), bin.getLatitude(), bin.getLongitude(), bin.getFillLevel(), bin.isOverflow(),
+                bin.getCapacityLiters());
+    }
+
+    private static BinDTO toDTO(long id, double latitude, double longitude, int fillLevel, boolean overflow,
+                                int capacityLiters) {
+        return BinDTO.builder()
+                .id(id)
+                .latitude(latitude)
+                .longitude(longitude)
+                .fillLevel(fillLevel)
+                .overflow(overflow)
+                .capacityLiters(capacityLiters == 0 ? null : capacityLiters)
+                .build();
     }
 
     // Helper to convert entity to DTO
@@ -60,17 +130,14 @@ public class BinService {
                 .longitude(bin.getLongitude())
                 .fillLevel(bin.getFillLevel())
                 .overflow(bin.isOverflow())
+                .capacityLiters(bin.getCapacityLiters())
                 .build();
     }
 
     public void collectBin(Long id) {
-    Bin bin = binRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Bin not found: " + id));
-
-    bin.setFillLevel(0);
-    bin.setOverflow(false);
-
-    binRepository.save(bin);
-}
+        if (!binState.collect(id)) {
+            throw new RuntimeException("Bin not found: " + id);
+        }
+    }
 
 }
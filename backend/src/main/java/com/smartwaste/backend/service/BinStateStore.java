@@ -0,0 +1,538 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.util.LongIntHashMap;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Authoritative current state of every bin (position, fill, overflow, volume) in primitive arrays, loaded
+ * once at startup. Fill updates are applied here and written to the {@code bin} table in batches by
+ * {@link #flush()} every {@code bin-state.flush-interval-ms} (the window in which an update lives only in
+ * memory). Everything that reads current fill levels reads them from here, not from the table.
+ * <p>
+ * Bins created, updated or deleted through {@link BinService} are mirrored with {@link #upsert} /
+ * {@link #remove}. Derived in-memory views (e.g. the heatmap grid) follow changes through
+ * {@link #addListener}.
+ * <p>
+ * Every change bumps a store-wide {@link #version()} (starting at the boot time in microseconds, so it keeps
+ * rising across restarts) and stamps the bin with it; {@link #forEachChangedSince} answers "what changed
+ * after version v", removals included for the last {@value #TOMBSTONES} deletions.
+ */
+@Service
+public class BinStateStore {
+
+    private static final int FREE = -1;
+    static final int TOMBSTONES = 16_384;
+
+    // outcomes of applyReadings
+    public static final byte READING_APPLIED = 0;
+    public static final byte READING_LOCKED = 1;
+    public static final byte READING_UNKNOWN = 2;
+
+    private final JdbcTemplate jdbc;
+    private final int flushBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+
+    private volatile boolean loaded;
+
+    // slot -> bin
+    private long[] ids = new long[0];
+    private double[] lat = new double[0];
+    private double[] lng = new double[0];
+    private int[] fill = new int[0];
+    private boolean[] overflow = new boolean[0];
+    private int[] capacityLiters = new int[0];   // 0 = not set
+    private boolean[] live = new boolean[0];
+    private int highWater;                       // slots in use are < highWater
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int liveCount;
+    private LongIntHashMap slotOf = new LongIntHashMap(16, FREE);
+
+    // write-behind: slots changed since the last flush (a slot may appear twice; dirty[] decides)
+    private boolean[] dirty = new boolean[0];
+    private int[] dirtySlots = new int[16];
+    private int dirtyCount;
+
+    // change versions (guarded by the lock; version is also read without it)
+    private final long bootVersion = System.currentTimeMillis() * 1000;
+    private volatile long version = bootVersion;
+    private long[] changedAt = new long[0];      // slot -> version of its last change
+    private final long[] removedIds = new long[TOMBSTONES];  // ring of the latest removals
+    private final long[] removedAt = new long[TOMBSTONES];
+    private long removedTotal;
+    private long oldestDeltaVersion = bootVersion;           // deltas since an older version are not available
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public BinStateStore(
+            JdbcTemplate jdbc,
+            @Value("${bin-state.flush-batch-size:5000}") int flushBatchSize
+    ) {
+        this.jdbc = jdbc;
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+    }
+
+    public record BinState(long id, double latitude, double longitude, int fillLevel, boolean overflow,
+                           int capacityLiters) {
+    }
+
+    public interface BinVisitor {
+        /**
+         * @param capacityLiters container volume, 0 when not set
+         */
+        void visit(long id, double latitude, double longitude, int fillLevel, boolean overflow, int capacityLiters);
+    }
+
+    public interface ChangeListener {
+        /**
+         * Called under the store's write lock, in change order; must be fast and must not call back into
+         * the store. {@code before} is null for a new bin, {@code after} is null for a removed one.
+         */
+        void binChanged(BinState before, BinState after);
+    }
+
+    // ✅ Load all bins once the app is up (and lazily if something reads first)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+
+            int[] n = {0};
+            allocate(16);
+            jdbc.query(
+                    "SELECT id, latitude, longitude, fill_level, overflow, capacity_liters FROM bin ORDER BY id",
+                    rs -> {
+                        if (n[0] == ids.length) grow(ids.length * 2);
+                        int slot = n[0]++;
+                        ids[slot] = rs.getLong("id");
+                        lat[slot] = rs.getDouble("latitude");
+                        lng[slot] = rs.getDouble("longitude");
+                        fill[slot] = rs.getInt("fill_level");
+                        overflow[slot] = rs.getBoolean("overflow");
+                        int cap = rs.getInt("capacity_liters");
+                        capacityLiters[slot] = rs.wasNull() ? 0 : cap;
+                        live[slot] = true;
+                    }
+            );
+
+            highWater = n[0];
+            liveCount = n[0];
+            slotOf = new LongIntHashMap(Math.max(16, n[0]), FREE);
+            for (int i = 0; i < n[0]; i++) slotOf.put(ids[i], i);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a listener and replays every current bin to it as new (before = null), atomically with
+     * respect to updates.
+     */
+    public void addListener(ChangeListener listener) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < highWater; i++) {
+                if (live[i]) listener.binChanged(null, state(i));
+            }
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<BinState> get(long binId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int slot = slotOf.get(binId);
+            if (slot == FREE) return Optional.empty();
+            return Optional.of(state(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every bin under the read lock; the visitor must not call back into the store.
+     */
+    public void forEach(BinVisitor visitor) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < highWater; i++) {
+                if (!live[i]) continue;
+                visitor.visit(ids[i], lat[i], lng[i], fill[i], overflow[i], capacityLiters[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits the bins changed after version {@code since} and reports the ids of bins removed since then
+     * (and not re-created), under the read lock; neither callback may call back into the store.
+     *
+     * @return the version the delta brings a reader to, or -1 (nothing visited) when {@code since} is
+     * outside the kept history (older than this run or the oldest kept removal, or newer than now);
+     * the reader then needs everything again
+     */
+    public long forEachChangedSince(long since, BinVisitor changed, LongConsumer removed) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            if (since < oldestDeltaVersion || since > version) return -1;
+            for (int i = 0; i < highWater; i++) {
+                if (!live[i] || changedAt[i] <= since) continue;
+                changed.visit(ids[i], lat[i], lng[i], fill[i], overflow[i], capacityLiters[i]);
+            }
+            long kept = Math.min(removedTotal, TOMBSTONES);
+            for (long n = removedTotal - kept; n < removedTotal; n++) {
+                int r = (int) (n % TOMBSTONES);
+                if (removedAt[r] > since && slotOf.get(removedIds[r]) == FREE) removed.accept(removedIds[r]);
+            }
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ✅ How many of the given bins still hold waste (fill > 0 or overflow); unknown ids are ignored
+    public int countUncollected(Collection<Long> binIds) {
+        return countUncollected(binIds, null);
+    }
+
+    // ✅ Same, counting the bin being collected in the current transaction as already emptied
+    public int countUncollected(Collection<Long> binIds, Long collecting) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int remaining = 0;
+            for (Long id : binIds) {
+                if (id.equals(collecting)) continue;
+                int slot = slotOf.get(id);
+                if (slot != FREE && (fill[slot] > 0 || overflow[slot])) remaining++;
+            }
+            return remaining;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ✅ Sensor / collection update (written to the table by the next flush); false if the bin is unknown
+    public boolean updateFill(long binId, int fillLevel, boolean isOverflow) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf.get(binId);
+            if (slot == FREE) return false;
+            setFill(slot, fillLevel, isOverflow);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a batch of sensor readings in array order under one write lock. A reading that would raise
+     * the fill of a bin for which {@code locked} is true is skipped (the bin is on an active route; only
+     * collection may change it). Overflow is set from {@code overflowLevel}.
+     *
+     * @return per reading: {@link #READING_APPLIED}, {@link #READING_LOCKED} or {@link #READING_UNKNOWN}
+     */
+    public byte[] applyReadings(long[] binIds, int[] levels, LongPredicate locked, int overflowLevel) {
+        ensureLoaded();
+        byte[] outcomes = new byte[binIds.length];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < binIds.length; i++) {
+                int slot = slotOf.get(binIds[i]);
+                if (slot == FREE) {
+                    outcomes[i] = READING_UNKNOWN;
+                } else if (levels[i] > fill[slot] && locked.test(binIds[i])) {
+                    outcomes[i] = READING_LOCKED;
+                } else {
+                    setFill(slot, levels[i], levels[i] >= overflowLevel);
+                    outcomes[i] = READING_APPLIED;
+                }
+            }
+            return outcomes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ✅ Truck emptied the bin
+    public boolean collect(long binId) {
+        return updateFill(binId, 0, false);
+    }
+
+    // ✅ Truck emptied the bin, as part of the surrounding transaction: applied once it commits (right away
+    // without one), so a rollback leaves the bin as it was
+    public void collectAfterCommit(long binId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            collect(binId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                collect(binId);
+            }
+        });
+    }
+
+    // ✅ Called by BinService after a bin is created or updated (the row is already written)
+    public void upsert(long binId, double latitude, double longitude, int fillLevel, boolean isOverflow,
+                       Integer capacity) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf.get(binId);
+            BinState before = null;
+            if (slot == FREE) {
+                slot = takeSlot();
+                ids[slot] = binId;
+                live[slot] = true;
+                liveCount++;
+                slotOf.put(binId, slot);
+            } else {
+                // an older sensor value may still be on its way to the table; let the next flush rewrite it
+                markDirty(slot);
+                if (!listeners.isEmpty()) before = state(slot);
+            }
+            lat[slot] = latitude;
+            lng[slot] = longitude;
+            fill[slot] = fillLevel;
+            overflow[slot] = isOverflow;
+            capacityLiters[slot] = capacity == null ? 0 : capacity;
+            stamp(slot);
+            notifyListeners(before, slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ✅ Called by BinService after a bin is deleted
+    public void remove(long binId) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf.remove(binId);
+            if (slot == FREE) return;
+            if (!listeners.isEmpty()) {
+                BinState before = state(slot);
+                for (ChangeListener l : listeners) l.binChanged(before, null);
+            }
+            live[slot] = false;
+            dirty[slot] = false;
+            liveCount--;
+            tombstone(binId);
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int pendingWrites() {
+        lock.readLock().lock();
+        try {
+            int n = 0;
+            for (int i = 0; i < dirtyCount; i++) if (dirty[dirtySlots[i]]) n++;
+            return n;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every changed bin to the table ({@code flush-batch-size} rows per statement). Rows of a failed
+     * statement stay pending for the next run.
+     */
+    @Scheduled(fixedDelayString = "${bin-state.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (!loaded) return;
+
+        // one flush at a time, so an older batch can never land after a newer one
+        synchronized (flushMonitor) {
+            long[] flushIds;
+            Integer[] flushFill;
+            Boolean[] flushOverflow;
+            int n = 0;
+
+            lock.writeLock().lock();
+            try {
+                if (dirtyCount == 0) return;
+                flushIds = new long[dirtyCount];
+                flushFill = new Integer[dirtyCount];
+                flushOverflow = new Boolean[dirtyCount];
+                for (int i = 0; i < dirtyCount; i++) {
+                    int slot = dirtySlots[i];
+                    if (!dirty[slot]) continue;
+                    dirty[slot] = false;
+                    flushIds[n] = ids[slot];
+                    flushFill[n] = fill[slot];
+                    flushOverflow[n] = overflow[slot];
+                    n++;
+                }
+                dirtyCount = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            for (int from = 0; from < n; from += flushBatchSize) {
+                int to = Math.min(n, from + flushBatchSize);
+                try {
+                    Long[] batchIds = new Long[to - from];
+                    for (int i = from; i < to; i++) batchIds[i - from] = flushIds[i];
+                    jdbc.update(
+                            "UPDATE bin b SET fill_level = t.fill_level, overflow = t.overflow " +
+                                    "FROM unnest(?::bigint[], ?::integer[], ?::boolean[]) AS t(id, fill_level, overflow) " +
+                                    "WHERE b.id = t.id",
+                            new SqlArrayValue("bigint", (Object[]) batchIds),
+                            new SqlArrayValue("integer", (Object[]) Arrays.copyOfRange(flushFill, from, to)),
+                            new SqlArrayValue("boolean", (Object[]) Arrays.copyOfRange(flushOverflow, from, to))
+                    );
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ BinStateStore flush failed, " + (n - from) + " bin(s) stay pending: " + e.getMessage());
+                    requeue(flushIds, from, n);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void requeue(long[] binIds, int from, int to) {
+        lock.writeLock().lock();
+        try {
+            for (int i = from; i < to; i++) {
+                int slot = slotOf.get(binIds[i]);
+                if (slot != FREE) markDirty(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // caller holds a lock
+    private BinState state(int slot) {
+        return new BinState(ids[slot], lat[slot], lng[slot], fill[slot], overflow[slot], capacityLiters[slot]);
+    }
+
+    // caller holds the write lock
+    private void notifyListeners(BinState before, int slot) {
+        if (listeners.isEmpty()) return;
+        BinState after = state(slot);
+        for (ChangeListener l : listeners) l.binChanged(before, after);
+    }
+
+    // caller holds the write lock
+    private void setFill(int slot, int fillLevel, boolean isOverflow) {
+        if (fill[slot] == fillLevel && overflow[slot] == isOverflow) return;
+        BinState before = listeners.isEmpty() ? null : state(slot);
+        fill[slot] = fillLevel;
+        overflow[slot] = isOverflow;
+        markDirty(slot);
+        stamp(slot);
+        notifyListeners(before, slot);
+    }
+
+    // caller holds the write lock
+    private void stamp(int slot) {
+        changedAt[slot] = ++version;
+    }
+
+    // caller holds the write lock; the overwritten (oldest) removal moves the delta horizon
+    private void tombstone(long binId) {
+        int r = (int) (removedTotal % TOMBSTONES);
+        if (removedTotal >= TOMBSTONES) oldestDeltaVersion = removedAt[r];
+        removedIds[r] = binId;
+        removedAt[r] = ++version;
+        removedTotal++;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) load();
+    }
+
+    // caller holds the write lock
+    private void markDirty(int slot) {
+        if (dirty[slot]) return;
+        dirty[slot] = true;
+        if (dirtyCount == dirtySlots.length) dirtySlots = Arrays.copyOf(dirtySlots, dirtyCount * 2);
+        dirtySlots[dirtyCount++] = slot;
+    }
+
+    private int takeSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (highWater == ids.length) grow(Math.max(16, ids.length * 2));
+        return highWater++;
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        lat = new double[capacity];
+        lng = new double[capacity];
+        fill = new int[capacity];
+        overflow = new boolean[capacity];
+        capacityLiters = new int[capacity];
+        live = new boolean[capacity];
+        dirty = new boolean[capacity];
+        changedAt = new long[capacity];
+        highWater = 0;
+        freeCount = 0;
+        liveCount = 0;
+        dirtyCount = 0;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        lat = Arrays.copyOf(lat, capacity);
+        lng = Arrays.copyOf(lng, capacity);
+        fill = Arrays.copyOf(fill, capacity);
+        overflow = Arrays.copyOf(overflow, capacity);
+        capacityLiters = Arrays.copyOf(capacityLiters, capacity);
+        live = Arrays.copyOf(live, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        changedAt = Arrays.copyOf(changedAt, capacity);
+    }
+}
@@ -8,8 +8,10 @@ import com.smartwaste.backend.repository.BinRepository;
 import com.smartwaste.backend.repository.CollectionRouteRepository;
 import com.smartwaste.backend.repository.DriverRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +22,8 @@ public class CollectionRouteService {
     private final CollectionRouteRepository routeRepository;
     private final DriverRepository driverRepository;
     private final BinRepository binRepository;
+    private final RouteDistanceService routeDistance;
+    private final ApplicationEventPublisher events;
 
     public List<CollectionRouteDTO> getAllRoutes() {
         return routeRepository.findAll()
@@ -43,9 +47,11 @@ public class CollectionRouteService {
                 .bins(bins)
                 .routeDate(dto.getRouteDate())
                 .status(dto.getStatus())
+                .distanceKm(routeDistance.computeKm(dto.getBinIds()))
                 .build();
 
         CollectionRoute saved = routeRepository.save(route);
+        events.publishEvent(RouteChangedEvent.date(saved.getRouteDate()));
         return toDTO(saved);
     }
 
@@ -62,12 +68,20 @@ public class CollectionRouteService {
                         .orElseThrow(() -> new RuntimeException("Bin not found: " + binId)))
                 .collect(Collectors.toList());
 
+        LocalDate previousDate = route.getRouteDate();
         route.setDriver(driver);
         route.setBins(bins);
         route.setRouteDate(dto.getRouteDate());
         route.setStatus(dto.getStatus());
+        route.setDistanceKm(routeDistance.computeKm(dto.getBinIds()));
 
         CollectionRoute updated = routeRepository.save(route);
+        // the driver or date may have changed: evict the route and the drivers of its (new) date
+        events.publishEvent(new RouteChangedEvent(List.of(id), updated.getRouteDate()));
+        // moved to another day: the old day lost a route too
+        if (previousDate != null && !previousDate.equals(updated.getRouteDate())) {
+            events.publishEvent(RouteChangedEvent.date(previousDate));
+        }
         return toDTO(updated);
     }
 
@@ -79,11 +93,14 @@ public class CollectionRouteService {
         route.setStatus(newStatus);
 
         CollectionRoute updated = routeRepository.save(route);
+        events.publishEvent(RouteChangedEvent.route(id));
         return toDTO(updated);
     }
 
     public void deleteRoute(Long id) {
+        LocalDate routeDate = routeRepository.findById(id).map(CollectionRoute::getRouteDate).orElse(null);
         routeRepository.deleteById(id);
+        events.publishEvent(new RouteChangedEvent(List.of(id), routeDate));
     }
 
     private CollectionRouteDTO toDTO(CollectionRoute route) {
@@ -0,0 +1,125 @@
+package com.smartwaste.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-day route totals (count, completed, distance) from the {@code daily_route_stats} rollup.
+ * <p>
+ * The rollup is rebuilt at startup by schema.sql and recomputed for the affected days after every
+ * {@link RouteChangedEvent}. Reads are cached per date: past days until an event touches them, today
+ * (and later days) for at most {@code analytics.today-ttl-ms}.
+ */
+@Service
+public class DailyRouteStatsService {
+
+    private static final int MAX_CACHED_DATES = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate newTransaction;
+    private final long todayTtlMs;
+
+    private final Map<LocalDate, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(); // bumped by every invalidation
+
+    public DailyRouteStatsService(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.today-ttl-ms:5000}") long todayTtlMs
+    ) {
+        this.jdbc = jdbc;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.todayTtlMs = todayTtlMs;
+    }
+
+    public record DailyRouteStats(long routes, long completedRoutes, double distanceKm) {
+        static final DailyRouteStats EMPTY = new DailyRouteStats(0, 0, 0);
+    }
+
+    private record Cached(DailyRouteStats stats, long loadedAtMs) {
+    }
+
+    public DailyRouteStats get(LocalDate date) {
+        long now = System.currentTimeMillis();
+        Cached cached = cache.get(date);
+        if (cached != null && (date.isBefore(LocalDate.now()) || now - cached.loadedAtMs < todayTtlMs)) {
+            return cached.stats;
+        }
+
+        long gen = generation.get();
+        List<DailyRouteStats> rows = jdbc.query(
+                "SELECT routes, completed_routes, distance_km FROM daily_route_stats WHERE route_date = ?",
+                (rs, rowNum) -> new DailyRouteStats(
+                        rs.getLong("routes"),
+                        rs.getLong("completed_routes"),
+                        rs.getDouble("distance_km")
+                ),
+                Date.valueOf(date)
+        );
+        DailyRouteStats stats = rows.isEmpty() ? DailyRouteStats.EMPTY : rows.get(0);
+
+        if (cache.size() >= MAX_CACHED_DATES) cache.clear();
+        // a read that raced an invalidation is returned but not kept
+        Cached loaded = new Cached(stats, now);
+        cache.compute(date, (d, current) -> generation.get() == gen ? loaded : current);
+        return stats;
+    }
+
+    // ✅ Routes changed: recompute the rollup rows of their days (after the change is committed)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        Set<LocalDate> dates = new HashSet<>();
+        if (event.routeDate() != null) dates.add(event.routeDate());
+        if (!event.routeIds().isEmpty()) {
+            dates.addAll(jdbc.query(
+                    "SELECT DISTINCT route_date FROM collection_route WHERE id = ANY(?) AND route_date IS NOT NULL",
+                    (rs, rowNum) -> rs.getDate("route_date").toLocalDate(),
+                    new SqlArrayValue("bigint", event.routeIds().toArray())
+            ));
+        }
+        if (dates.isEmpty()) return;
+
+        // invalidate only once the new rows are committed: a read in between would cache the old ones
+        newTransaction.executeWithoutResult(status -> refresh(dates));
+        generation.incrementAndGet();
+        cache.keySet().removeAll(dates);
+    }
+
+    // One aggregate over the days' routes; days left without routes lose their row
+    void refresh(Collection<LocalDate> dates) {
+        Object[] days = dates.stream().map(Date::valueOf).toArray();
+
+        jdbc.update(
+                "INSERT INTO daily_route_stats (route_date, routes, completed_routes, distance_km) " +
+                        "SELECT route_date, COUNT(*), COUNT(*) FILTER (WHERE status = 'completed'), " +
+                        "COALESCE(SUM(distance_km), 0) " +
+                        "FROM collection_route " +
+                        "WHERE route_date = ANY(?) " +
+                        "GROUP BY route_date " +
+                        "ON CONFLICT (route_date) DO UPDATE SET " +
+                        "routes = EXCLUDED.routes, " +
+                        "completed_routes = EXCLUDED.completed_routes, " +
+                        "distance_km = EXCLUDED.distance_km",
+                new SqlArrayValue("date", days)
+        );
+        jdbc.update(
+                "DELETE FROM daily_route_stats s " +
+                        "WHERE s.route_date = ANY(?) " +
+                        "AND NOT EXISTS (SELECT 1 FROM collection_route cr WHERE cr.route_date = s.route_date)",
+                new SqlArrayValue("date", days)
+        );
+    }
+}
@@ -0,0 +1,350 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.geo.GeoMath;
+import com.smartwaste.backend.routing.NodeDistance;
+import com.smartwaste.backend.util.LongIntHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bin-to-bin distances (meters) for the whole bin set, kept in primitive arrays.
+ * <p>
+ * While the full triangle fits the memory budget every pair is stored in one {@code float[]}.
+ * Above the budget the service switches to sparse mode and computes pairs from the stored coordinates.
+ * Bins created, moved or deleted through {@link BinService} update it in place.
+ */
+@Service
+public class DistanceMatrixService {
+
+    private static final int FREE = -1;
+
+    // above this size a route view computes from coordinates instead of copying a dense block
+    private static final int MAX_VIEW_NODES = 4096;
+
+    private static final int MAX_DENSE_SLOTS = 46340;
+
+    private final JdbcTemplate jdbc;
+    private final long maxBytes;
+    private final int maxDenseSlots;        // most slots whose triangle fits maxBytes
+    private final boolean fastDistance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    // slot -> bin
+    private long[] ids = new long[0];
+    private double[] lat = new double[0];
+    private double[] lng = new double[0];
+    private double[] cosLat = new double[0];
+    private boolean[] live = new boolean[0];
+    private int highWater;          // slots in use are < highWater
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private LongIntHashMap slotOf = new LongIntHashMap(16, FREE);
+
+    // dense mode: lower triangle, index(i, j) = i * (i - 1) / 2 + j for i > j
+    private float[] tri;
+
+    public DistanceMatrixService(
+            JdbcTemplate jdbc,
+            @Value("${routing.distance-matrix.max-bytes:67108864}") long maxBytes,
+            @Value("${routing.distance-matrix.fast-distance:true}") boolean fastDistance
+    ) {
+        this.jdbc = jdbc;
+        this.maxBytes = maxBytes;
+        this.maxDenseSlots = maxDenseSlots(maxBytes);
+        this.fastDistance = fastDistance;
+    }
+
+    // ✅ Load all bins once the app is up (and lazily if routing runs first)
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<double[]> rows = jdbc.query(
+                "SELECT id, latitude, longitude FROM bin ORDER BY id",
+                (rs, rowNum) -> new double[]{rs.getLong("id"), rs.getDouble("latitude"), rs.getDouble("longitude")}
+        );
+
+        lock.writeLock().lock();
+        try {
+            int n = rows.size();
+            allocateSlots(Math.max(16, n));
+            slotOf = new LongIntHashMap(Math.max(16, n), FREE);
+            highWater = 0;
+            freeCount = 0;
+            tri = null;
+
+            for (double[] r : rows) {
+                int slot = highWater++;
+                ids[slot] = (long) r[0];
+                lat[slot] = r[1];
+                lng[slot] = r[2];
+                cosLat[slot] = GeoMath.cosLat(r[1]);
+                live[slot] = true;
+                slotOf.put(ids[slot], slot);
+            }
+
+            if (denseBytes(ids.length) <= maxBytes) {
+                tri = new float[triSize(ids.length)];
+                double[] row = new double[highWater];
+                for (int i = 1; i < highWater; i++) {
+                    int base = i * (i - 1) / 2;
+                    distancesFrom(i, 0, i, row);
+                    for (int j = 0; j < i; j++) tri[base + j] = (float) row[j];
+                }
+            }
+
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ✅ Called by BinService after a bin is created or updated
+    public void onBinSaved(long binId, double binLat, double binLng) {
+        if (!loaded) return; // the initial load will pick it up
+
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf.get(binId);
+            if (slot != FREE) {
+                if (lat[slot] == binLat && lng[slot] == binLng) return;
+            } else {
+                slot = takeSlot();
+                ids[slot] = binId;
+                live[slot] = true;
+                slotOf.put(binId, slot);
+            }
+
+            lat[slot] = binLat;
+            lng[slot] = binLng;
+            cosLat[slot] = GeoMath.cosLat(binLat);
+
+            if (tri != null) {
+                double[] row = new double[highWater];
+                distancesFrom(slot, 0, highWater, row);
+                for (int j = 0; j < highWater; j++) {
+                    if (j == slot || !live[j]) continue;
+                    tri[triIndex(slot, j)] = (float) row[j];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ✅ Called by BinService after a bin is deleted
+    public void onBinDeleted(long binId) {
+        if (!loaded) return;
+
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf.remove(binId);
+            if (slot == FREE) return;
+
+            live[slot] = false;
+
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long binId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return slotOf.containsKey(binId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distance in meters between two bins, or NaN if either bin is unknown.
+     */
+    public double distanceMeters(long binA, long binB) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int a = slotOf.get(binA);
+            int b = slotOf.get(binB);
+            if (a == FREE || b == FREE) return Double.NaN;
+            return slotDistance(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Length in meters of the path through the given bins in order; unknown bins are skipped
+     * (the legs touching them are not counted).
+     */
+    public double pathMeters(List<Long> binIds) {
+        if (binIds == null || binIds.size() < 2) return 0.0;
+
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            double total = 0;
+            int prev = slotOf.get(binIds.get(0));
+            for (int i = 1; i < binIds.size(); i++) {
+                int cur = slotOf.get(binIds.get(i));
+                if (prev != FREE && cur != FREE) total += slotDistance(prev, cur);
+                prev = cur;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot of the distances between the given bins, addressed by their index in {@code binIds}.
+     * The view is detached from the service (no locking), so a routing thread can hammer it freely.
+     * Bins the service does not know use the fallback coordinates.
+     */
+    public NodeDistance view(long[] binIds, double[] fallbackLat, double[] fallbackLng) {
+        ensureLoaded();
+        int n = binIds.length;
+
+        lock.readLock().lock();
+        try {
+            int[] slots = new int[n];
+            double[] vLat = new double[n];
+            double[] vLng = new double[n];
+            double[] vCos = new double[n];
+            boolean allKnown = true;
+            for (int i = 0; i < n; i++) {
+                int s = slotOf.get(binIds[i]);
+                slots[i] = s;
+                vLat[i] = s == FREE ? fallbackLat[i] : lat[s];
+                vLng[i] = s == FREE ? fallbackLng[i] : lng[s];
+                vCos[i] = s == FREE ? GeoMath.cosLat(fallbackLat[i]) : cosLat[s];
+                allKnown &= s != FREE;
+            }
+
+            boolean fast = fastDistance;
+            if (tri == null || n > MAX_VIEW_NODES) {
+                return (a, b) -> {
+                    if (a == b) return 0;
+                    return fast
+                            ? GeoMath.fastDistance(vLat[a], vLng[a], vCos[a], vLat[b], vLng[b], vCos[b])
+                            : GeoMath.haversine(vLat[a], vLng[a], vCos[a], vLat[b], vLng[b], vCos[b]);
+                };
+            }
+
+            float[] block = new float[triSize(n)];
+            for (int i = 1; i < n; i++) {
+                int base = i * (i - 1) / 2;
+                for (int j = 0; j < i; j++) {
+                    block[base + j] = (allKnown || (slots[i] != FREE && slots[j] != FREE))
+                            ? tri[triIndex(slots[i], slots[j])]
+                            : (float) (fast
+                            ? GeoMath.fastDistance(vLat[i], vLng[i], vCos[i], vLat[j], vLng[j], vCos[j])
+                            : GeoMath.haversine(vLat[i], vLng[i], vCos[i], vLat[j], vLng[j], vCos[j]));
+                }
+            }
+            return (a, b) -> {
+                if (a == b) return 0;
+                return a > b ? block[a * (a - 1) / 2 + b] : block[b * (b - 1) / 2 + a];
+            };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- internals (callers hold the lock) ----------------
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) reload();
+            }
+        }
+    }
+
+    private double slotDistance(int a, int b) {
+        if (a == b) return 0;
+        if (tri != null) return tri[triIndex(a, b)];
+        return fastDistance
+                ? GeoMath.fastDistance(lat[a], lng[a], cosLat[a], lat[b], lng[b], cosLat[b])
+                : GeoMath.haversine(lat[a], lng[a], cosLat[a], lat[b], lng[b], cosLat[b]);
+    }
+
+    // distances from a slot to slots [from, to), into out[0 .. to - from)
+    private void distancesFrom(int slot, int from, int to, double[] out) {
+        if (fastDistance) {
+            GeoMath.fastDistanceFrom(lat[slot], lng[slot], cosLat[slot], lat, lng, cosLat, from, to, out);
+        } else {
+            GeoMath.haversineFrom(lat[slot], lng[slot], cosLat[slot], lat, lng, cosLat, from, to, out);
+        }
+    }
+
+    private int takeSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+
+        if (highWater == ids.length) grow(nextCapacity());
+        return highWater++;
+    }
+
+    // double, but stay dense while one more slot still fits the budget
+    private int nextCapacity() {
+        int doubled = Math.max(16, ids.length * 2);
+        if (tri == null) return doubled;
+        int dense = Math.min(doubled, maxDenseSlots);
+        return dense > highWater ? dense : doubled;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        lat = Arrays.copyOf(lat, capacity);
+        cosLat = Arrays.copyOf(cosLat, capacity);
+        lng = Arrays.copyOf(lng, capacity);
+        live = Arrays.copyOf(live, capacity);
+
+        if (tri != null) {
+            if (denseBytes(capacity) <= maxBytes) {
+                tri = Arrays.copyOf(tri, triSize(capacity));
+            } else {
+                tri = null; // sparse mode from here on
+            }
+        }
+    }
+
+    private void allocateSlots(int capacity) {
+        ids = new long[capacity];
+        lat = new double[capacity];
+        lng = new double[capacity];
+        cosLat = new double[capacity];
+        live = new boolean[capacity];
+    }
+
+    private static int triIndex(int a, int b) {
+        return a > b ? a * (a - 1) / 2 + b : b * (b - 1) / 2 + a;
+    }
+
+    private static int triSize(int capacity) {
+        return (int) ((long) capacity * (capacity - 1) / 2);
+    }
+
+    private static int maxDenseSlots(long maxBytes) {
+        int n = (int) Math.min(MAX_DENSE_SLOTS, (1 + Math.sqrt(1 + 2.0 * Math.max(0, maxBytes))) / 2);
+        while (n > 0 && denseBytes(n) > maxBytes) n--;
+        return n;
+    }
+
+    private static long denseBytes(int capacity) {
+        // triangle indexes are ints, so never go dense past what an int index can address
+        if (capacity > MAX_DENSE_SLOTS) return Long.MAX_VALUE;
+        return (long) capacity * (capacity - 1) / 2 * Float.BYTES;
+    }
+}
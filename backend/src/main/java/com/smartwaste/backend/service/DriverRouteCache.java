@@ -0,0 +1,51 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.dto.RouteDto;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The route each driver polls for (one per driver and date, "no route" included), kept in memory and
+ * evicted by {@link RouteChangedEvent} after the change commits.
+ * <p>
+ * A load that started before an eviction is not stored: every eviction bumps a generation counter, and a
+ * loaded value is only put if the counter has not moved since the load began.
+ */
+@Component
+public class DriverRouteCache {
+
+    private record Entry(LocalDate routeDate, RouteDto route) {
+    }
+
+    // one entry per driver: only the date the driver last asked for is kept
+    private final Map<Long, Entry> byDriver = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public RouteDto get(Long driverId, LocalDate routeDate, Supplier<RouteDto> loader) {
+        Entry cached = byDriver.get(driverId);
+        if (cached != null && cached.routeDate.equals(routeDate)) return cached.route;
+
+        long gen = generation.get();
+        RouteDto route = loader.get();
+        Entry loaded = new Entry(routeDate, route);
+        byDriver.compute(driverId, (id, current) -> generation.get() == gen ? loaded : current);
+        return route;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        generation.incrementAndGet();
+        byDriver.entrySet().removeIf(e -> matches(e.getValue(), event));
+    }
+
+    private static boolean matches(Entry entry, RouteChangedEvent event) {
+        if (event.routeDate() != null && event.routeDate().equals(entry.routeDate)) return true;
+        return entry.route != null && event.routeIds().contains(entry.route.getId());
+    }
+}
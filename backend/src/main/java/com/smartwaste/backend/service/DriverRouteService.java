@@ -1,6 +1,7 @@
 package com.smartwaste.backend.service;
 
 import com.smartwaste.backend.dto.RouteDto;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,16 +15,28 @@ public class DriverRouteService {
 
     private final JdbcTemplate jdbc;
     private final RouteQueryService routeQueryService;
+    private final DriverRouteCache routeCache;
+    private final BinStateStore binState;
+    private final ApplicationEventPublisher events;
 
-    public DriverRouteService(JdbcTemplate jdbc, RouteQueryService routeQueryService) {
+    public DriverRouteService(JdbcTemplate jdbc, RouteQueryService routeQueryService,
+                              DriverRouteCache routeCache, BinStateStore binState,
+                              ApplicationEventPublisher events) {
         this.jdbc = jdbc;
         this.routeQueryService = routeQueryService;
+        this.routeCache = routeCache;
+        this.binState = binState;
+        this.events = events;
     }
 
     // ✅ Find today's route for driver (returns RouteDto format your frontend already understands)
+    // Served from memory until the route (or the day's plan) changes.
     public RouteDto getTodayRouteForDriver(Long driverId) {
         LocalDate today = LocalDate.now();
+        return routeCache.get(driverId, today, () -> loadRoute(driverId, today));
+    }
 
+    private RouteDto loadRoute(Long driverId, LocalDate today) {
         // find route id for today + driver
         List<Long> ids = jdbc.query(
                 "SELECT id FROM collection_route WHERE driver_id = ? AND route_date = ? ORDER BY id DESC LIMIT 1",
@@ -36,14 +49,8 @@ public class DriverRouteService {
 
         Long routeId = ids.get(0);
 
-        // reuse your existing RouteQueryService DTO logic
-        List<RouteDto> all = routeQueryService.getAllRoutesWithDistance();
-        for (RouteDto r : all) {
-            if (r.getId() != null && r.getId().longValue() == routeId.longValue()) {
-                return r;
-            }
-        }
-        return null;
+        // reuse your existing RouteQueryService DTO logic (just this one route)
+        return routeQueryService.getRouteWithDistance(routeId);
     }
 
     @Transactional
@@ -53,15 +60,13 @@ public class DriverRouteService {
                 "UPDATE collection_route SET status = 'in_progress' WHERE id = ? AND status <> 'completed'",
                 routeId
         );
+        events.publishEvent(RouteChangedEvent.route(routeId));
     }
 
     @Transactional
     public void collectBin(Long routeId, Long binId) {
-        // 1) collect bin (DB truth)
-        jdbc.update(
-                "UPDATE bin SET fill_level = 0, overflow = false WHERE id = ?",
-                binId
-        );
+        // 1) collect bin (in-memory bin state once this transaction commits; the table follows with its next flush)
+        binState.collectAfterCommit(binId);
 
         // 2) when driver starts collecting, route should be in_progress (unless already completed)
         jdbc.update(
@@ -70,20 +75,18 @@ public class DriverRouteService {
         );
 
         // 3) if ALL bins in that route are now collected => route completed
-        Integer remaining = jdbc.queryForObject(
-                "SELECT COUNT(*) " +
-                        "FROM collection_route_bins crb " +
-                        "JOIN bin b ON b.id = crb.bin_id " +
-                        "WHERE crb.route_id = ? AND (b.fill_level > 0 OR b.overflow = true)",
-                Integer.class,
+        int remaining = binState.countUncollected(jdbc.queryForList(
+                "SELECT bin_id FROM collection_route_bins WHERE route_id = ?",
+                Long.class,
                 routeId
-        );
+        ), binId);
 
-        if (remaining != null && remaining == 0) {
+        if (remaining == 0) {
             jdbc.update(
                     "UPDATE collection_route SET status = 'completed' WHERE id = ?",
                     routeId
             );
         }
+        events.publishEvent(RouteChangedEvent.route(routeId));
     }
 }
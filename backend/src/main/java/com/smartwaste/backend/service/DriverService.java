@@ -29,6 +29,7 @@ public class DriverService {
                 .name(dto.getName())
                 .phoneNumber(dto.getPhoneNumber())
                 .vehicleNumber(dto.getVehicleNumber())
+                .capacityLiters(dto.getCapacityLiters())
                 .build(); // available defaults to true
         Driver saved = driverRepository.save(driver);
         return toDTO(saved);
@@ -42,6 +43,7 @@ public class DriverService {
         driver.setPhoneNumber(dto.getPhoneNumber());
         driver.setVehicleNumber(dto.getVehicleNumber());
         driver.setAvailable(dto.getAvailable()); // update availability if needed
+        driver.setCapacityLiters(dto.getCapacityLiters());
         Driver updated = driverRepository.save(driver);
         return toDTO(updated);
     }
@@ -59,6 +61,7 @@ public class DriverService {
                 .phoneNumber(driver.getPhoneNumber())
                 .vehicleNumber(driver.getVehicleNumber())
                 .available(driver.getAvailable())
+                .capacityLiters(driver.getCapacityLiters())
                 .build();
     }
 }
@@ -0,0 +1,235 @@
+package com.smartwaste.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smartwaste.backend.dto.BinDTO;
+import com.smartwaste.backend.dto.RouteDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Full exports of bins and route history as NDJSON (one JSON object per line, same fields as the list
+ * endpoints) or CSV. Rows are read through a JDBC cursor of {@code export.fetch-size} rows and written to
+ * the output as they arrive, so memory use does not depend on the size of the export.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) return NDJSON;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown format: " + value + " (use ndjson or csv)");
+            }
+        }
+    }
+
+    private static final int OUTPUT_BUFFER = 64 * 1024;
+
+    private final JdbcTemplate jdbc;
+    private final RouteQueryService routeQueryService;
+    private final BinStateStore binState;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public ExportService(
+            JdbcTemplate jdbc,
+            RouteQueryService routeQueryService,
+            BinStateStore binState,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbc = jdbc;
+        this.routeQueryService = routeQueryService;
+        this.binState = binState;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // ✅ Every bin, by id. Pending fill updates are flushed first so the table is current.
+    public void exportBins(Format format, OutputStream out) throws IOException {
+        binState.flush();
+
+        streamInTransaction(() -> {
+            try (RowSink<BinDTO> sink = sink(format, out,
+                    List.of("id", "latitude", "longitude", "fill_level", "overflow", "capacity_liters"),
+                    (b, csv) -> csv.row(b.getId(), b.getLatitude(), b.getLongitude(), b.getFillLevel(), b.isOverflow(),
+                            b.getCapacityLiters()))) {
+                jdbc.query(
+                        con -> {
+                            PreparedStatement ps = con.prepareStatement(
+                                    "SELECT id, latitude, longitude, fill_level, overflow, capacity_liters FROM bin ORDER BY id",
+                                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                            ps.setFetchSize(fetchSize);
+                            return ps;
+                        },
+                        (RowCallbackHandler) rs -> {
+                            int cap = rs.getInt("capacity_liters");
+                            Integer capacity = rs.wasNull() ? null : cap;
+                            sink.accept(BinDTO.builder()
+                                    .id(rs.getLong("id"))
+                                    .latitude(rs.getDouble("latitude"))
+                                    .longitude(rs.getDouble("longitude"))
+                                    .fillLevel(rs.getInt("fill_level"))
+                                    .overflow(rs.getBoolean("overflow"))
+                                    .capacityLiters(capacity)
+                                    .build());
+                        }
+                );
+            }
+        });
+    }
+
+    // ✅ Routes matching the filters (all optional), by id, stops in driving order
+    public void exportRoutes(Format format, LocalDate from, LocalDate to, Long driverId, String status,
+                             OutputStream out) throws IOException {
+        streamInTransaction(() -> {
+            try (RowSink<RouteDto> sink = sink(format, out,
+                    List.of("id", "driver_id", "route_date", "status", "distance_km", "bin_ids"),
+                    (r, csv) -> csv.row(r.getId(), r.getDriverId(), r.getRouteDate(), r.getStatus(),
+                            r.getDistanceKm(), joinIds(r.getBinIds())))) {
+                routeQueryService.forEachRoute(from, to, driverId, status, fetchSize, sink::accept);
+            }
+        });
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    // Postgres only uses a cursor (fetch size) inside a transaction; otherwise it reads the whole result first
+    private void streamInTransaction(IoAction action) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // stops as one field: "12;7;33"
+    private static String joinIds(List<Long> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (Long id : ids) {
+            if (!sb.isEmpty()) sb.append(';');
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
+    private interface CsvMapper<T> {
+        void write(T row, CsvWriter csv) throws IOException;
+    }
+
+    // Row writer of one export; accept() throws UncheckedIOException so it can run inside JDBC callbacks
+    private abstract static class RowSink<T> implements Closeable {
+        abstract void write(T row) throws IOException;
+
+        final void accept(T row) {
+            try {
+                write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private <T> RowSink<T> sink(Format format, OutputStream out, List<String> header, CsvMapper<T> csvMapper)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), OUTPUT_BUFFER);
+
+        if (format == Format.CSV) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.row(header.toArray());
+            return new RowSink<>() {
+                void write(T row) throws IOException {
+                    csvMapper.write(row, csv);
+                }
+
+                public void close() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+
+        // NDJSON: one object per line; the buffered writer decides when bytes go out, not every row
+        SequenceWriter json = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        return new RowSink<>() {
+            boolean empty = true;
+
+            void write(T row) throws IOException {
+                json.write(row);
+                empty = false;
+            }
+
+            public void close() throws IOException {
+                json.flush();
+                if (!empty) writer.write('\n');
+                writer.flush();
+            }
+        };
+    }
+
+    // RFC 4180: fields with a comma, quote or line break are quoted, quotes doubled; null = empty field
+    private static final class CsvWriter {
+        private final Writer writer;
+
+        CsvWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void row(Object... fields) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) writer.write(',');
+                if (fields[i] == null) continue;
+                String v = fields[i].toString();
+                if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(v.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(v);
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+}
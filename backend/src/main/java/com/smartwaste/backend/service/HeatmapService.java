@@ -0,0 +1,91 @@
+package com.smartwaste.backend.service;
+
+import com.smartwaste.backend.geo.HeatmapGrid;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Viewport heatmap of hot bins (yellow/red: fill >= {@link #HOT_FILL} or overflow), aggregated per zoom
+ * level by a {@link HeatmapGrid} that follows {@link BinStateStore} changes incrementally.
+ */
+@Service
+public class HeatmapService implements BinStateStore.ChangeListener {
+
+    public static final int HOT_FILL = 80;
+
+    private final BinStateStore binState;
+    private final HeatmapGrid grid = new HeatmapGrid(HOT_FILL);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean attached;
+
+    public HeatmapService(BinStateStore binState) {
+        this.binState = binState;
+    }
+
+    // ✅ Build the grid once the app is up (and lazily on the first query)
+    @EventListener(ApplicationReadyEvent.class)
+    public void attach() {
+        if (attached) return;
+        synchronized (this) {
+            if (attached) return;
+            binState.addListener(this);
+            attached = true;
+        }
+    }
+
+    public static boolean isHot(int fill, boolean overflow) {
+        return overflow || fill >= HOT_FILL;
+    }
+
+    @Override
+    public void binChanged(BinStateStore.BinState before, BinStateStore.BinState after) {
+        boolean wasHot = before != null && isHot(before.fillLevel(), before.overflow());
+        boolean isHot = after != null && isHot(after.fillLevel(), after.overflow());
+        if (!wasHot && !isHot) return;
+
+        lock.writeLock().lock();
+        try {
+            if (wasHot) grid.remove(before.latitude(), before.longitude(), before.fillLevel(), before.overflow());
+            if (isHot) grid.add(after.latitude(), after.longitude(), after.fillLevel(), after.overflow());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cells of the box at the zoom level, as compact rows {@code [lat, lng, count, maxFill, overflowCount]}
+     * (position = centroid of the cell's bins, rounded to ~1 m).
+     */
+    public Map<String, Object> cells(int zoom, double south, double west, double north, double east) {
+        attach();
+        int z = HeatmapGrid.clampZoom(zoom);
+
+        List<Object[]> cells = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            grid.query(z, south, west, north, east, (lat, lng, count, maxFill, overflowCount) ->
+                    cells.add(new Object[]{round5(lat), round5(lng), count, maxFill, overflowCount}));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("zoom", z);
+        out.put("cellSizeDeg", HeatmapGrid.cellSizeDeg(z));
+        out.put("fields", List.of("lat", "lng", "count", "maxFill", "overflowCount"));
+        out.put("cells", cells);
+        return out;
+    }
+
+    private static double round5(double v) {
+        return Math.round(v * 1e5) / 1e5;
+    }
+}
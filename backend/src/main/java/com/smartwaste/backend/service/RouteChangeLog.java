@@ -0,0 +1,73 @@
+package com.smartwaste.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Change version of the routes, bumped by every {@link RouteChangedEvent} after the change commits, with
+ * the routes and dates each version touched so readers can ask for what changed since a version.
+ * <p>
+ * Versions start at the boot time in microseconds, so they keep increasing across restarts; history only
+ * covers the current run (and at most {@link #MAX_TRACKED} routes / dates), older versions need a full read.
+ */
+@Component
+public class RouteChangeLog {
+
+    static final int MAX_TRACKED = 50_000;
+
+    private final long bootVersion = System.currentTimeMillis() * 1000;
+
+    private volatile long version = bootVersion;
+    private long oldestDeltaVersion = bootVersion;       // deltas since an older version are not available
+    private final Map<Long, Long> routeVersions = new HashMap<>();
+    private final Map<LocalDate, Long> dateVersions = new HashMap<>();
+
+    /**
+     * What changed after a version: these routes (updated or deleted), and every route of these dates
+     * (regenerated, so old routes of the date may be gone under ids the reader has never seen).
+     */
+    public record Changes(long version, Set<Long> routeIds, Set<LocalDate> dates) {
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // ✅ Record the change (after commit, so a reader that sees the new version also sees the new rows)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        long v = version + 1;
+        if (routeVersions.size() + event.routeIds().size() > MAX_TRACKED || dateVersions.size() >= MAX_TRACKED) {
+            routeVersions.clear();
+            dateVersions.clear();
+            oldestDeltaVersion = version;
+        }
+        for (Long id : event.routeIds()) routeVersions.put(id, v);
+        if (event.routeDate() != null) dateVersions.put(event.routeDate(), v);
+        version = v;
+    }
+
+    /**
+     * Routes and dates changed after {@code since}, or null when that version is outside the kept history
+     * (older than this run or the last trim, or newer than the current version).
+     */
+    public synchronized Changes changesSince(long since) {
+        if (since < oldestDeltaVersion || since > version) return null;
+
+        Set<Long> routeIds = new HashSet<>();
+        routeVersions.forEach((id, v) -> {
+            if (v > since) routeIds.add(id);
+        });
+        Set<LocalDate> dates = new HashSet<>();
+        dateVersions.forEach((date, v) -> {
+            if (v > since) dates.add(date);
+        });
+        return new Changes(version, routeIds, dates);
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartwaste.backend.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by every writer of {@code collection_route} / {@code collection_route_bins}: the given routes
+ * changed (status, stops, distance, driver or deletion) and/or the set of routes of a date changed.
+ * Listeners run after the writing transaction commits.
+ */
+public record RouteChangedEvent(Collection<Long> routeIds, LocalDate routeDate) {
+
+    public RouteChangedEvent {
+        routeIds = routeIds == null ? List.of() : List.copyOf(routeIds);
+    }
+
+    public static RouteChangedEvent route(Long routeId) {
+        return new RouteChangedEvent(List.of(routeId), null);
+    }
+
+    public static RouteChangedEvent routes(Collection<Long> routeIds) {
+        return new RouteChangedEvent(routeIds, null);
+    }
+
+    public static RouteChangedEvent date(LocalDate routeDate) {
+        return new RouteChangedEvent(List.of(), routeDate);
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartwaste.backend.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps {@code collection_route.distance_km} (bin-to-bin path length in stop order) up to date, so reads
+ * serve the stored value instead of recomputing it. Writers store it with the route; a bin that moves
+ * only refreshes the routes it is on.
+ */
+@Service
+public class RouteDistanceService {
+
+    private static final int BACKFILL_BATCH = 500;
+
+    private final JdbcTemplate jdbc;
+    private final DistanceMatrixService distanceMatrix;
+    private final ApplicationEventPublisher events;
+
+    public RouteDistanceService(JdbcTemplate jdbc, DistanceMatrixService distanceMatrix,
+                                ApplicationEventPublisher events) {
+        this.jdbc = jdbc;
+        this.distanceMatrix = distanceMatrix;
+        this.events = events;
+    }
+
+    // ✅ Distance of a stop list in km (same value every read path serves)
+    public double computeKm(List<Long> binIds) {
+        if (binIds == null || binIds.size() < 2) return 0.0;
+        return distanceMatrix.pathMeters(binIds) / 1000.0;
+    }
+
+    // ✅ Recompute and store the distance of the given routes (2 statements, whatever the count)
+    public void refresh(Collection<Long> routeIds) {
+        if (routeIds == null || routeIds.isEmpty()) return;
+
+        List<Long> ids = new ArrayList<>(routeIds.size());
+        List<Double> km = new ArrayList<>(routeIds.size());
+        jdbc.query(
+                "SELECT cr.id, " +
+                        "COALESCE(array_agg(crb.bin_id ORDER BY crb.stop_sequence NULLS LAST, crb.bin_id) " +
+                        "FILTER (WHERE crb.bin_id IS NOT NULL), '{}') AS bin_ids " +
+                        "FROM collection_route cr " +
+                        "LEFT JOIN collection_route_bins crb ON crb.route_id = cr.id " +
+                        "WHERE cr.id = ANY(?) " +
+                        "GROUP BY cr.id",
+                rs -> {
+                    ids.add(rs.getLong("id"));
+                    km.add(computeKm(toLongList(rs.getArray("bin_ids"))));
+                },
+                new SqlArrayValue("bigint", routeIds.toArray())
+        );
+
+        if (ids.isEmpty()) return;
+        jdbc.update(
+                "UPDATE collection_route cr SET distance_km = t.km " +
+                        "FROM unnest(?::bigint[], ?::float8[]) AS t(id, km) " +
+                        "WHERE cr.id = t.id",
+                new SqlArrayValue("bigint", ids.toArray()),
+                new SqlArrayValue("float8", km.toArray())
+        );
+        events.publishEvent(RouteChangedEvent.routes(ids));
+    }
+
+    // ✅ A bin moved: only the routes that contain it change
+    public void refreshRoutesWithBin(long binId) {
+        List<Long> routeIds = jdbc.query(
+                "SELECT DISTINCT route_id FROM collection_route_bins WHERE bin_id = ?",
+                (rs, rowNum) -> rs.getLong("route_id"),
+                binId
+        );
+        refresh(routeIds);
+    }
+
+    // ✅ Routes written before the column existed get their distance once, at startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        while (true) {
+            List<Long> missing = jdbc.query(
+                    "SELECT id FROM collection_route WHERE distance_km IS NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> rs.getLong("id"),
+                    BACKFILL_BATCH
+            );
+            if (missing.isEmpty()) return;
+            refresh(missing);
+        }
+    }
+
+    static List<Long> toLongList(Array array) throws SQLException {
+        if (array == null) return new ArrayList<>();
+        try {
+            Object[] values = (Object[]) array.getArray();
+            List<Long> out = new ArrayList<>(values.length);
+            for (Object v : values) out.add(((Number) v).longValue());
+            return out;
+        } finally {
+            array.free();
+        }
+    }
+}
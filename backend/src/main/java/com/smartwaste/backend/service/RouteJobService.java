@@ -0,0 +1,238 @@
+package com.smartwaste.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background route generation: the plan is computed on a dedicated executor outside any transaction,
+ * then written by {@link AutoRouteService#commitPlan} in one short transaction.
+ * <p>
+ * At most one job per route date is queued or running; further requests for that date get the same job.
+ * Finished jobs are kept in memory (newest {@code routing.jobs.keep-finished}) so clients can poll them.
+ */
+@Service
+public class RouteJobService {
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    private final AutoRouteService autoRouteService;
+    private final ThreadPoolExecutor executor;
+    private final int keepFinished;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Job> activeByDate = new HashMap<>();       // guarded by this
+    private final ArrayDeque<String> finishedOrder = new ArrayDeque<>();    // guarded by this
+
+    public RouteJobService(
+            AutoRouteService autoRouteService,
+            @Value("${routing.jobs.threads:1}") int threads,
+            @Value("${routing.jobs.queue-size:16}") int queueSize,
+            @Value("${routing.jobs.keep-finished:100}") int keepFinished
+    ) {
+        this.autoRouteService = autoRouteService;
+        this.keepFinished = Math.max(1, keepFinished);
+
+        int poolSize = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread t = new Thread(r, "route-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+    }
+
+    public static class Job implements AutoRouteService.GenerationProgress {
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDate routeDate;
+        private final int threshold;
+        private final int maxStopsPerRoute;
+        private final String algorithm;
+        private final Instant submittedAt = Instant.now();
+
+        private volatile String status = STATUS_QUEUED;
+        private volatile String phase;
+        private volatile int stepsTotal;
+        private final AtomicInteger stepsDone = new AtomicInteger();
+        private volatile boolean cancelRequested;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile Map<String, Object> result;
+        private volatile String error;
+        private volatile Future<?> future;
+
+        Job(LocalDate routeDate, int threshold, int maxStopsPerRoute, String algorithm) {
+            this.routeDate = routeDate;
+            this.threshold = threshold;
+            this.maxStopsPerRoute = maxStopsPerRoute;
+            this.algorithm = algorithm;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void phase(String phase, int steps) {
+            this.stepsDone.set(0);
+            this.stepsTotal = steps;
+            this.phase = phase;
+        }
+
+        @Override
+        public void advance() {
+            stepsDone.incrementAndGet();
+        }
+
+        @Override
+        public boolean cancelled() {
+            return cancelRequested;
+        }
+
+        boolean isFinished() {
+            return STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+        }
+
+        public Map<String, Object> toMap(boolean coalesced) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("jobId", id);
+            m.put("status", status);
+            m.put("phase", phase);
+            m.put("stepsDone", stepsDone.get());
+            m.put("stepsTotal", stepsTotal);
+            m.put("routeDate", routeDate.toString());
+            m.put("threshold", threshold);
+            m.put("maxStopsPerRoute", maxStopsPerRoute);
+            m.put("algorithm", algorithm);
+            m.put("submittedAt", submittedAt.toString());
+            m.put("startedAt", startedAt == null ? null : startedAt.toString());
+            m.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+            if (coalesced) m.put("coalesced", true);
+            if (result != null) m.put("result", result);
+            if (error != null) m.put("error", error);
+            return m;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Job job : jobs.values()) job.cancelRequested = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a job for the date, or returns the one already queued/running for it (flagged "coalesced").
+     *
+     * @throws IllegalArgumentException on an unknown algorithm
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public synchronized Map<String, Object> submit(LocalDate routeDate, int threshold, int maxStopsPerRoute,
+                                                   String algorithm) {
+        if (!AutoRouteService.ALGORITHM_GREEDY.equals(algorithm) && !AutoRouteService.ALGORITHM_SAVINGS.equals(algorithm)) {
+            throw new IllegalArgumentException("Invalid algorithm: " + algorithm + " (use greedy|savings)");
+        }
+
+        Job existing = activeByDate.get(routeDate);
+        if (existing != null) return existing.toMap(true);
+
+        Job job = new Job(routeDate, threshold, maxStopsPerRoute, algorithm);
+        job.future = executor.submit(() -> run(job));
+        jobs.put(job.id, job);
+        activeByDate.put(routeDate, job);
+        return job.toMap(false);
+    }
+
+    public Optional<Map<String, Object>> get(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.toMap(false));
+    }
+
+    /**
+     * Requests cancellation. A queued job never starts; a running job stops at its next checkpoint,
+     * unless it is already committing (then it finishes normally).
+     */
+    public Optional<Map<String, Object>> cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+
+        synchronized (this) {
+            if (!job.isFinished()) {
+                job.cancelRequested = true;
+                if (STATUS_QUEUED.equals(job.status) && job.future.cancel(false)) {
+                    finish(job, STATUS_CANCELLED, null, null);
+                }
+            }
+        }
+        return Optional.of(job.toMap(false));
+    }
+
+    private void run(Job job) {
+        synchronized (this) {
+            if (job.cancelRequested) {
+                finish(job, STATUS_CANCELLED, null, null);
+                return;
+            }
+            job.status = STATUS_RUNNING;
+            job.startedAt = Instant.now();
+        }
+
+        try {
+            AutoRouteService.RoutePlan plan = autoRouteService.planRoutes(
+                    job.routeDate, job.threshold, job.maxStopsPerRoute, job.algorithm, job);
+
+            // last point where a cancel is honoured; from here on the write goes through
+            synchronized (this) {
+                if (job.cancelRequested) {
+                    finish(job, STATUS_CANCELLED, null, null);
+                    return;
+                }
+                job.phase(AutoRouteService.PHASE_SAVING, 0);
+            }
+
+            Map<String, Object> result = autoRouteService.commitPlan(plan);
+            synchronized (this) {
+                finish(job, STATUS_SUCCEEDED, result, null);
+            }
+        } catch (CancellationException e) {
+            synchronized (this) {
+                finish(job, STATUS_CANCELLED, null, null);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                finish(job, STATUS_FAILED, null, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            }
+        }
+    }
+
+    // caller holds the monitor
+    private void finish(Job job, String status, Map<String, Object> result, String error) {
+        if (job.isFinished()) return;
+
+        job.result = result;
+        job.error = error;
+        job.finishedAt = Instant.now();
+        job.status = status;
+
+        activeByDate.remove(job.routeDate, job);
+
+        finishedOrder.addLast(job.id);
+        while (finishedOrder.size() > keepFinished) {
+            jobs.remove(finishedOrder.removeFirst());
+        }
+    }
+}
@@ -2,111 +2,214 @@ package com.smartwaste.backend.service;
 
 import com.smartwaste.backend.dto.RouteDto;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.SqlArrayValue;
 import org.springframework.stereotype.Service;
 
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class RouteQueryService {
 
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 5000;
+
     private final JdbcTemplate jdbc;
+    private final RouteDistanceService routeDistance;
+    private final RouteChangeLog changeLog;
 
-    public RouteQueryService(JdbcTemplate jdbc) {
+    public RouteQueryService(JdbcTemplate jdbc, RouteDistanceService routeDistance, RouteChangeLog changeLog) {
         this.jdbc = jdbc;
+        this.routeDistance = routeDistance;
+        this.changeLog = changeLog;
     }
 
-    // ✅ GET all routes (existing)
-    public List<RouteDto> getAllRoutesWithDistance() {
+    // ✅ Current change version of the routes (see RouteChangeLog)
+    public long version() {
+        return changeLog.version();
+    }
 
-        List<Map<String, Object>> routes = jdbc.queryForList(
-                "SELECT id, driver_id, route_date, status " +
-                        "FROM collection_route " +
-                        "ORDER BY id DESC"
+    // ✅ One row per route, with its stops already in driving order (one query, no per-route lookups).
+    // The lateral join only runs for the rows that survive WHERE / LIMIT.
+    private static final String ROUTES_WITH_STOPS_SQL =
+            "SELECT cr.id, cr.driver_id, cr.route_date, cr.status, cr.distance_km, " +
+                    "COALESCE(s.bin_ids, '{}') AS bin_ids " +
+                    "FROM collection_route cr " +
+                    "LEFT JOIN LATERAL (" +
+                    "SELECT array_agg(crb.bin_id ORDER BY crb.stop_sequence NULLS LAST, crb.bin_id) AS bin_ids " +
+                    "FROM collection_route_bins crb WHERE crb.route_id = cr.id" +
+                    ") s ON true ";
+
+    private RouteDto mapRoute(ResultSet rs, int rowNum) throws SQLException {
+        long driverId = rs.getLong("driver_id");
+        boolean noDriver = rs.wasNull();
+        Date routeDate = rs.getDate("route_date");
+        String status = rs.getString("status");
+
+        List<Long> binIds = RouteDistanceService.toLongList(rs.getArray("bin_ids"));
+
+        // ✅ stored at plan time; only computed here for a route the backfill has not reached yet
+        double distanceKm = rs.getDouble("distance_km");
+        if (rs.wasNull()) distanceKm = routeDistance.computeKm(binIds);
+
+        return new RouteDto(
+                rs.getLong("id"),
+                noDriver ? null : driverId,
+                binIds,
+                routeDate == null ? null : routeDate.toString(),
+                status == null ? "" : status,
+                distanceKm
         );
-
-        return buildDtos(routes);
     }
 
-    // ✅ NEW: GET routes by date
-    public List<RouteDto> getRoutesByDateWithDistance(LocalDate date) {
-
-        List<Map<String, Object>> routes = jdbc.queryForList(
-                "SELECT id, driver_id, route_date, status " +
-                        "FROM collection_route " +
-                        "WHERE route_date = ? " +
-                        "ORDER BY id DESC",
-                Date.valueOf(date)
+    // ✅ Filtered page of routes, newest id first. Keyset pagination: pass the last id of a page as
+    // afterId to get the next one. Every filter is optional; limit null = every matching route.
+    public List<RouteDto> findRoutes(LocalDate from, LocalDate to, Long driverId, String status,
+                                     Long afterId, Integer limit) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+
+        appendFilters(where, args, from, to, driverId, status);
+        if (afterId != null) {
+            where.append(" AND cr.id < ?");
+            args.add(afterId);
+        }
+        if (limit != null) args.add(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+
+        return jdbc.query(
+                ROUTES_WITH_STOPS_SQL +
+                        (where.length() == 0 ? "" : "WHERE " + where.substring(5) + " ") +
+                        "ORDER BY cr.id DESC" +
+                        (limit != null ? " LIMIT ?" : ""),
+                this::mapRoute,
+                args.toArray()
         );
-
-        return buildDtos(routes);
     }
 
-    private List<RouteDto> buildDtos(List<Map<String, Object>> routes) {
-        List<RouteDto> result = new ArrayList<>();
-
-        for (Map<String, Object> r : routes) {
-            Long routeId = ((Number) r.get("id")).longValue();
-            Long driverId = r.get("driver_id") == null ? null : ((Number) r.get("driver_id")).longValue();
-            String routeDate = r.get("route_date") == null ? null : r.get("route_date").toString();
-            String status = r.get("status") == null ? "" : r.get("status").toString();
-
-            List<Long> binIds = jdbc.query(
-                    "SELECT bin_id FROM collection_route_bins WHERE route_id = ? ORDER BY bin_id",
-                    (rs, rowNum) -> rs.getLong("bin_id"),
-                    routeId
-            );
-
-            double distanceKm = calculateDistanceKm(binIds);
-
-            result.add(new RouteDto(routeId, driverId, binIds, routeDate, status, distanceKm));
+    /**
+     * ✅ What changed in a filtered route list after version {@code since}:
+     * {@code routes} = changed routes that match the filters, {@code removed} = changed route ids that were
+     * deleted or no longer match, {@code replacedDates} = days whose routes were regenerated (drop every
+     * route of those days, {@code routes} holds their new ones). {@code resync = true} when the version is
+     * too old for a delta; the list has to be read again without {@code since}.
+     */
+    public Map<String, Object> findRoutesChangedSince(long since, LocalDate from, LocalDate to, Long driverId,
+                                                      String status) {
+        RouteChangeLog.Changes changes = changeLog.changesSince(since);
+        Map<String, Object> delta = new LinkedHashMap<>();
+        if (changes == null) {
+            delta.put("version", changeLog.version());
+            delta.put("resync", true);
+            return delta;
         }
 
-        return result;
-    }
-
-    private double calculateDistanceKm(List<Long> binIds) {
-        if (binIds == null || binIds.size() < 2) return 0.0;
+        List<RouteDto> routes = findChangedRoutes(changes.routeIds(), changes.dates(), from, to, driverId, status);
+        Set<Long> removed = new TreeSet<>(changes.routeIds());
+        for (RouteDto r : routes) removed.remove(r.getId());
 
-        String inSql = binIds.stream().map(x -> "?").collect(Collectors.joining(","));
-        Object[] params = binIds.toArray();
+        delta.put("version", changes.version());
+        delta.put("resync", false);
+        delta.put("routes", routes);
+        delta.put("removed", removed);
+        delta.put("replacedDates", changes.dates().stream().sorted().map(LocalDate::toString).toList());
+        return delta;
+    }
 
-        List<Map<String, Object>> rows = jdbc.queryForList(
-                "SELECT id, latitude, longitude FROM bin WHERE id IN (" + inSql + ")",
-                params
+    // ✅ The routes among the given ids or on the given dates that match the filters (no paging),
+    // newest id first. Used for "what changed since" reads.
+    public List<RouteDto> findChangedRoutes(Collection<Long> routeIds, Collection<LocalDate> dates,
+                                            LocalDate from, LocalDate to, Long driverId, String status) {
+        if (routeIds.isEmpty() && dates.isEmpty()) return List.of();
+
+        StringBuilder where = new StringBuilder(" AND (cr.id = ANY(?) OR cr.route_date = ANY(?))");
+        List<Object> args = new ArrayList<>();
+        args.add(new SqlArrayValue("bigint", routeIds.toArray()));
+        args.add(new SqlArrayValue("date", dates.stream().map(Date::valueOf).toArray()));
+        appendFilters(where, args, from, to, driverId, status);
+
+        return jdbc.query(
+                ROUTES_WITH_STOPS_SQL +
+                        "WHERE " + where.substring(5) + " " +
+                        "ORDER BY cr.id DESC",
+                this::mapRoute,
+                args.toArray()
         );
+    }
 
-        Map<Long, double[]> coords = new HashMap<>();
-        for (Map<String, Object> row : rows) {
-            Long id = ((Number) row.get("id")).longValue();
-            double lat = ((Number) row.get("latitude")).doubleValue();
-            double lng = ((Number) row.get("longitude")).doubleValue();
-            coords.put(id, new double[]{lat, lng});
+    private static void appendFilters(StringBuilder where, List<Object> args, LocalDate from, LocalDate to,
+                                      Long driverId, String status) {
+        if (from != null) {
+            where.append(" AND cr.route_date >= ?");
+            args.add(Date.valueOf(from));
         }
-
-        double totalMeters = 0.0;
-        for (int i = 0; i < binIds.size() - 1; i++) {
-            double[] a = coords.get(binIds.get(i));
-            double[] b = coords.get(binIds.get(i + 1));
-            if (a == null || b == null) continue;
-            totalMeters += haversineMeters(a[0], a[1], b[0], b[1]);
+        if (to != null) {
+            where.append(" AND cr.route_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (driverId != null) {
+            where.append(" AND cr.driver_id = ?");
+            args.add(driverId);
+        }
+        if (status != null && !status.isBlank()) {
+            where.append(" AND LOWER(cr.status) = ?");
+            args.add(status.trim().toLowerCase());
         }
-
-        return totalMeters / 1000.0;
     }
 
-    private double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371000;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
+    // ✅ Every route matching the filters, oldest id first, read through a cursor of fetchSize rows and
+    // handed to the consumer one by one (nothing is collected). Postgres only streams inside a
+    // transaction; without one the driver reads the whole result first.
+    public void forEachRoute(LocalDate from, LocalDate to, Long driverId, String status, int fetchSize,
+                             Consumer<RouteDto> consumer) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        appendFilters(where, args, from, to, driverId, status);
+        String sql = ROUTES_WITH_STOPS_SQL +
+                (where.length() == 0 ? "" : "WHERE " + where.substring(5) + " ") +
+                "ORDER BY cr.id";
+
+        jdbc.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(mapRoute(rs, rs.getRow()))
+        );
+    }
 
-        double aa = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    // ✅ One route (null if it does not exist)
+    public RouteDto getRouteWithDistance(long routeId) {
+        List<RouteDto> routes = jdbc.query(
+                ROUTES_WITH_STOPS_SQL +
+                        "WHERE cr.id = ?",
+                this::mapRoute,
+                routeId
+        );
+        return routes.isEmpty() ? null : routes.get(0);
+    }
 
-        double c = 2 * Math.atan2(Math.sqrt(aa), Math.sqrt(1 - aa));
-        return R * c;
+    // ✅ Days that have routes (newest first) with their route count, for date pickers
+    public List<Map<String, Object>> getRouteDates(int limit) {
+        return jdbc.query(
+                "SELECT route_date, COUNT(*) AS routes " +
+                        "FROM collection_route " +
+                        "WHERE route_date IS NOT NULL " +
+                        "GROUP BY route_date " +
+                        "ORDER BY route_date DESC " +
+                        "LIMIT ?",
+                (rs, rowNum) -> Map.<String, Object>of(
+                        "routeDate", rs.getDate("route_date").toString(),
+                        "routes", rs.getLong("routes")
+                ),
+                Math.max(1, Math.min(limit, MAX_PAGE_SIZE))
+        );
     }
 }
@@ -1,5 +1,6 @@
 package com.smartwaste.backend.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,9 +13,13 @@ import java.util.*;
 public class RouteStatusService {
 
     private final JdbcTemplate jdbc;
+    private final BinStateStore binState;
+    private final ApplicationEventPublisher events;
 
-    public RouteStatusService(JdbcTemplate jdbc) {
+    public RouteStatusService(JdbcTemplate jdbc, BinStateStore binState, ApplicationEventPublisher events) {
         this.jdbc = jdbc;
+        this.binState = binState;
+        this.events = events;
     }
 
     private String norm(String s) {
@@ -41,18 +46,21 @@ public class RouteStatusService {
         if (updated == 0) {
             throw new RuntimeException("Route not found: " + routeId);
         }
+        events.publishEvent(RouteChangedEvent.route(routeId));
     }
 
     // ✅ Dispatcher: start collecting for date
     // assigned/pending -> in_progress
     @Transactional
     public int startCollectingForDate(LocalDate date) {
-        return jdbc.update(
+        int updated = jdbc.update(
                 "UPDATE collection_route " +
                         "SET status = 'in_progress' " +
                         "WHERE route_date = ? AND LOWER(status) IN ('assigned','pending')",
                 Date.valueOf(date)
         );
+        if (updated > 0) events.publishEvent(RouteChangedEvent.date(date));
+        return updated;
     }
 
     // ✅ Collect bin for a route (and auto-complete if last bin collected)
@@ -91,23 +99,18 @@ public class RouteStatusService {
             );
         }
 
-        // 3) Collect the bin (fill_level=0 overflow=false)
-        jdbc.update(
-                "UPDATE bin SET fill_level = 0, overflow = false WHERE id = ?",
-                binId
-        );
+        // 3) Collect the bin (fill_level=0 overflow=false, in memory once this transaction commits)
+        binState.collectAfterCommit(binId);
+        events.publishEvent(RouteChangedEvent.route(routeId));
 
         // 4) If all bins are collected -> complete route
-        Integer remaining = jdbc.queryForObject(
-                "SELECT COUNT(*) " +
-                        "FROM collection_route_bins crb " +
-                        "JOIN bin b ON b.id = crb.bin_id " +
-                        "WHERE crb.route_id = ? AND (b.fill_level > 0 OR b.overflow = true)",
-                Integer.class,
+        int remaining = binState.countUncollected(jdbc.queryForList(
+                "SELECT bin_id FROM collection_route_bins WHERE route_id = ?",
+                Long.class,
                 routeId
-        );
+        ), binId);
 
-        boolean completed = (remaining != null && remaining == 0);
+        boolean completed = (remaining == 0);
 
         if (completed) {
             jdbc.update(
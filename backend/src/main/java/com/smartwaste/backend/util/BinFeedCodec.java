@@ -0,0 +1,129 @@
+package com.smartwaste.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of bin feeds ({@value #MEDIA_TYPE}), columnar:
+ * <pre>
+ *   u8     version (1)
+ *   u8     flags (bit 0: capacity column present)
+ *   varint count
+ *   count x zigzag varint   id delta (from the previous id, first from 0)
+ *   count x zigzag varint   latitude delta, fixed point 1e-6 degrees (~0.1 m)
+ *   count x zigzag varint   longitude delta, fixed point 1e-6 degrees
+ *   count x u8              fill level 0..100, bit 7 = overflow
+ *   [count x varint         capacity liters, 0 = not set]
+ * </pre>
+ * Varints are unsigned LEB128. Rows keep the order they were added in. Not thread-safe.
+ */
+public final class BinFeedCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.smartwaste.bins";
+
+    public static final int VERSION = 1;
+    public static final int FLAG_CAPACITY = 1;
+
+    private static final double FIXED_POINT = 1e6;
+
+    private final boolean withCapacity;
+
+    private long[] ids;
+    private int[] lat;
+    private int[] lng;
+    private byte[] fill;
+    private int[] capacity;
+    private int size;
+
+    public BinFeedCodec(int expectedSize, boolean withCapacity) {
+        int cap = Math.max(16, expectedSize);
+        this.withCapacity = withCapacity;
+        this.ids = new long[cap];
+        this.lat = new int[cap];
+        this.lng = new int[cap];
+        this.fill = new byte[cap];
+        this.capacity = withCapacity ? new int[cap] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param capacityLiters ignored without the capacity column; 0 = not set
+     */
+    public void add(long id, double latitude, double longitude, int fillLevel, boolean overflow, int capacityLiters) {
+        if (size == ids.length) grow(size * 2);
+        ids[size] = id;
+        lat[size] = (int) Math.round(latitude * FIXED_POINT);
+        lng[size] = (int) Math.round(longitude * FIXED_POINT);
+        fill[size] = (byte) (Math.max(0, Math.min(100, fillLevel)) | (overflow ? 0x80 : 0));
+        if (withCapacity) capacity[size] = Math.max(0, capacityLiters);
+        size++;
+    }
+
+    public byte[] encode() {
+        // worst case: 10 bytes per varint column entry
+        Out out = new Out(16 + size * (withCapacity ? 36 : 31));
+        out.u8(VERSION);
+        out.u8(withCapacity ? FLAG_CAPACITY : 0);
+        out.varint(size);
+
+        long prevId = 0;
+        for (int i = 0; i < size; i++) {
+            out.varint(zigzag(ids[i] - prevId));
+            prevId = ids[i];
+        }
+        long prev = 0;
+        for (int i = 0; i < size; i++) {
+            out.varint(zigzag(lat[i] - prev));
+            prev = lat[i];
+        }
+        prev = 0;
+        for (int i = 0; i < size; i++) {
+            out.varint(zigzag(lng[i] - prev));
+            prev = lng[i];
+        }
+        for (int i = 0; i < size; i++) out.u8(fill[i]);
+        if (withCapacity) {
+            for (int i = 0; i < size; i++) out.varint(capacity[i]);
+        }
+        return out.toByteArray();
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private void grow(int cap) {
+        ids = Arrays.copyOf(ids, cap);
+        lat = Arrays.copyOf(lat, cap);
+        lng = Arrays.copyOf(lng, cap);
+        fill = Arrays.copyOf(fill, cap);
+        if (withCapacity) capacity = Arrays.copyOf(capacity, cap);
+    }
+
+    private static final class Out {
+        private final byte[] buf;
+        private int pos;
+
+        Out(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void u8(int v) {
+            buf[pos++] = (byte) v;
+        }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.smartwaste.backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram in microseconds with log-linear buckets (as in HdrHistogram): values below 64 get a
+ * bucket each, and every power of two above that is split into 64 equal sub-buckets. Recording is
+ * lock-free from any thread; a percentile is the top of the bucket that holds it (at most the max seen),
+ * so it is at most 1/64 (about 1.6%) above the exact value. Values from 2^40 us (about 12 days) up share
+ * the last bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 39;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SUB_BUCKETS * (MAX_EXPONENT - SUB_BITS + 2));
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long micros) {
+        buckets.incrementAndGet(indexOf(Math.max(0, micros)));
+        if (micros > maxMicros.get()) maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int b = 0; b < buckets.length(); b++) total += buckets.get(b);
+        return total;
+    }
+
+    public double percentileMs(double p) {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int b = 0; b < buckets.length(); b++) {
+            seen += buckets.get(b);
+            if (seen >= rank) return Math.min(highestValueIn(b), maxMicros.get()) / 1000.0;
+        }
+        return maxMicros.get() / 1000.0;
+    }
+
+    public double maxMs() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    // below 64: the value itself; above: 64 buckets per octave, picked by the 6 bits after the leading one
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        if (micros >= 2L << MAX_EXPONENT) return SUB_BUCKETS * (MAX_EXPONENT - SUB_BITS + 2) - 1;
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        int sub = (int) (micros >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS * (shift + 1) + sub;
+    }
+
+    // largest value that lands in bucket b
+    static long highestValueIn(int b) {
+        if (b < SUB_BUCKETS) return b;
+        int shift = b / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + b % SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
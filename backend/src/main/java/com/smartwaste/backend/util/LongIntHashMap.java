@@ -0,0 +1,131 @@
+package com.smartwaste.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> int map (linear probing, no boxing).
+ * {@link Long#MIN_VALUE} is reserved as the empty-slot marker and cannot be used as a key.
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int missingValue;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        int cap = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(cap);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        int i = index(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) return missingValue;
+            if (k == key) return values[i];
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        int i = index(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) return false;
+            if (k == key) return true;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) throw new IllegalArgumentException("Reserved key: " + key);
+
+        int i = index(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length) rehash(keys.length * 2);
+                return;
+            }
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the key and returns its value, or the missing value if it was absent.
+     */
+    public int remove(long key) {
+        int i = index(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) return missingValue;
+            if (k == key) break;
+            i = (i + 1) & mask;
+        }
+
+        int removed = values[i];
+        size--;
+
+        // backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == EMPTY) break;
+            int home = index(k);
+            boolean movable = (gap <= j) ? (home <= gap || home > j) : (home <= gap && home > j);
+            if (movable) {
+                keys[gap] = k;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
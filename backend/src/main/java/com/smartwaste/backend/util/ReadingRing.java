@@ -0,0 +1,108 @@
+package com.smartwaste.backend.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded ring of sensor readings (bin id, level, measured-at) for many producers and one consumer, in
+ * primitive arrays.
+ * <p>
+ * Producers claim a range of sequence numbers with one CAS (a batch goes in whole or not at all), fill
+ * their slots and publish each slot by writing its sequence number. The consumer reads slots in sequence
+ * order up to the first one not yet published, then frees them by advancing {@code consumed}.
+ */
+public final class ReadingRing {
+
+    private final int capacity;
+    private final int mask;
+
+    private final long[] binIds;
+    private final int[] levels;
+    private final long[] measuredAt;
+    private final long[] enqueuedAt;                    // System.nanoTime() when offered
+    private final AtomicLongArray published;           // slot -> sequence last written there
+
+    private final AtomicLong claimed = new AtomicLong(); // next sequence a producer takes
+    private volatile long consumed;                      // next sequence the consumer reads
+
+    public ReadingRing(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.binIds = new long[this.capacity];
+        this.levels = new int[this.capacity];
+        this.measuredAt = new long[this.capacity];
+        this.enqueuedAt = new long[this.capacity];
+        long[] none = new long[this.capacity];
+        Arrays.fill(none, -1);
+        this.published = new AtomicLongArray(none);
+    }
+
+    public interface ReadingConsumer {
+        void accept(long binId, int level, long measuredAt, long enqueuedAtNanos);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // claimed but not yet consumed (includes slots still being written)
+    public int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+    /**
+     * Adds {@code n} readings starting at {@code from}, or none if they do not all fit. Any thread.
+     */
+    public boolean offer(long[] ids, int[] lv, long[] measured, int from, int n) {
+        long start = claim(n);
+        if (start < 0) return false;
+
+        long now = System.nanoTime();
+        for (int k = 0; k < n; k++) {
+            publish(start + k, ids[from + k], lv[from + k], measured[from + k], now);
+        }
+        return true;
+    }
+
+    // first sequence of n free slots now owned by the caller, or -1 when they do not all fit
+    long claim(int n) {
+        if (n > capacity) return -1;
+        long start;
+        do {
+            start = claimed.get();
+            if (start + n - consumed > capacity) return -1;
+        } while (!claimed.compareAndSet(start, start + n));
+        return start;
+    }
+
+    // fills a claimed slot and makes it visible to the consumer
+    void publish(long seq, long binId, int level, long measured, long enqueuedAtNanos) {
+        int slot = (int) seq & mask;
+        binIds[slot] = binId;
+        levels[slot] = level;
+        measuredAt[slot] = measured;
+        enqueuedAt[slot] = enqueuedAtNanos;
+        published.setRelease(slot, seq);
+    }
+
+    /**
+     * Hands up to {@code max} readings to the consumer in offer order and frees their slots. Only one
+     * thread may drain.
+     *
+     * @return how many readings were drained
+     */
+    public int drain(int max, ReadingConsumer consumer) {
+        long seq = consumed;
+        int n = 0;
+        while (n < max) {
+            int slot = (int) seq & mask;
+            if (published.get(slot) != seq) break;     // not written yet
+            consumer.accept(binIds[slot], levels[slot], measuredAt[slot], enqueuedAt[slot]);
+            seq++;
+            n++;
+        }
+        consumed = seq;
+        return n;
+    }
+}
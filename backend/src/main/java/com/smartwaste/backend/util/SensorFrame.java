@@ -0,0 +1,61 @@
+package com.smartwaste.backend.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size binary frame of one sensor reading on the TCP ingest port, 16 bytes, big-endian:
+ * <pre>
+ *   u8   magic (0xB1)
+ *   u8   flags (bit 0: measured-at is set; otherwise the reading is stamped on arrival)
+ *   u8   fill level 0..100
+ *   u8   reserved (0)
+ *   u32  bin id
+ *   i64  measured at, epoch milliseconds
+ * </pre>
+ * A connection carries frames back to back with nothing in between. Fields are read in place with
+ * absolute gets, so a read buffer is decoded without copying.
+ */
+public final class SensorFrame {
+
+    public static final int SIZE = 16;
+    public static final byte MAGIC = (byte) 0xB1;
+    public static final int FLAG_MEASURED_AT = 1;
+
+    private SensorFrame() {
+    }
+
+    public static boolean hasMagic(ByteBuffer buf, int pos) {
+        return buf.get(pos) == MAGIC;
+    }
+
+    public static int flags(ByteBuffer buf, int pos) {
+        return buf.get(pos + 1) & 0xFF;
+    }
+
+    public static int level(ByteBuffer buf, int pos) {
+        return buf.get(pos + 2) & 0xFF;
+    }
+
+    public static long binId(ByteBuffer buf, int pos) {
+        return buf.getInt(pos + 4) & 0xFFFFFFFFL;
+    }
+
+    public static long measuredAt(ByteBuffer buf, int pos) {
+        return buf.getLong(pos + 8);
+    }
+
+    /**
+     * Appends one frame at the buffer's position.
+     *
+     * @param measuredAt epoch milliseconds, or a negative value to let the server stamp the reading
+     */
+    public static void write(ByteBuffer buf, long binId, int level, long measuredAt) {
+        if (binId < 0 || binId > 0xFFFFFFFFL) throw new IllegalArgumentException("Bin id out of range: " + binId);
+        buf.put(MAGIC);
+        buf.put((byte) (measuredAt >= 0 ? FLAG_MEASURED_AT : 0));
+        buf.put((byte) level);
+        buf.put((byte) 0);
+        buf.putInt((int) binId);
+        buf.putLong(Math.max(0, measuredAt));
+    }
+}
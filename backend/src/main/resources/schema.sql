@@ -0,0 +1,45 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization=true); must stay idempotent.
+
+-- Planned stop order of each route (0-based). Rows written before the column existed get their old
+-- bin_id order so the list stays readable.
+ALTER TABLE collection_route_bins ADD COLUMN IF NOT EXISTS stop_sequence INTEGER;
+
+UPDATE collection_route_bins crb
+SET stop_sequence = s.seq
+FROM (
+    SELECT ctid, ROW_NUMBER() OVER (PARTITION BY route_id ORDER BY bin_id) - 1 AS seq
+    FROM collection_route_bins
+    WHERE stop_sequence IS NULL
+) s
+WHERE crb.ctid = s.ctid;
+
+-- Stored route distance (km); NULL rows are filled by RouteDistanceService at startup.
+ALTER TABLE collection_route ADD COLUMN IF NOT EXISTS distance_km DOUBLE PRECISION;
+
+-- Route listing (keyset by id within a date / driver / status) and stop lookups.
+CREATE INDEX IF NOT EXISTS idx_collection_route_date_id ON collection_route (route_date, id DESC);
+CREATE INDEX IF NOT EXISTS idx_collection_route_driver_date_id ON collection_route (driver_id, route_date, id DESC);
+CREATE INDEX IF NOT EXISTS idx_collection_route_status_date ON collection_route (LOWER(status), route_date);
+CREATE INDEX IF NOT EXISTS idx_collection_route_bins_route_seq ON collection_route_bins (route_id, stop_sequence);
+CREATE INDEX IF NOT EXISTS idx_collection_route_bins_bin ON collection_route_bins (bin_id);
+
+-- Per-day route totals for analytics, kept current by DailyRouteStatsService; rebuilt here on startup.
+CREATE TABLE IF NOT EXISTS daily_route_stats (
+    route_date DATE PRIMARY KEY,
+    routes BIGINT NOT NULL,
+    completed_routes BIGINT NOT NULL,
+    distance_km DOUBLE PRECISION NOT NULL
+);
+
+INSERT INTO daily_route_stats (route_date, routes, completed_routes, distance_km)
+SELECT route_date, COUNT(*), COUNT(*) FILTER (WHERE status = 'completed'), COALESCE(SUM(distance_km), 0)
+FROM collection_route
+WHERE route_date IS NOT NULL
+GROUP BY route_date
+ON CONFLICT (route_date) DO UPDATE SET
+    routes = EXCLUDED.routes,
+    completed_routes = EXCLUDED.completed_routes,
+    distance_km = EXCLUDED.distance_km;
+
+DELETE FROM daily_route_stats s
+WHERE NOT EXISTS (SELECT 1 FROM collection_route cr WHERE cr.route_date = s.route_date);
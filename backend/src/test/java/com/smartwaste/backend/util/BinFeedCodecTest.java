@@ -0,0 +1,122 @@
+package com.smartwaste.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinFeedCodecTest {
+
+    // Reads the format documented on BinFeedCodec (what the frontend decoder does)
+    private static final class Decoded {
+        int version;
+        int flags;
+        long[] ids;
+        double[] lat;
+        double[] lng;
+        int[] fill;
+        boolean[] overflow;
+        int[] capacity;
+    }
+
+    private static Decoded decode(byte[] bytes) {
+        int[] pos = {0};
+        Decoded d = new Decoded();
+        d.version = bytes[pos[0]++] & 0xFF;
+        d.flags = bytes[pos[0]++] & 0xFF;
+        int n = (int) varint(bytes, pos);
+
+        d.ids = new long[n];
+        long prev = 0;
+        for (int i = 0; i < n; i++) d.ids[i] = prev += unzigzag(varint(bytes, pos));
+        d.lat = new double[n];
+        prev = 0;
+        for (int i = 0; i < n; i++) d.lat[i] = (prev += unzigzag(varint(bytes, pos))) / 1e6;
+        d.lng = new double[n];
+        prev = 0;
+        for (int i = 0; i < n; i++) d.lng[i] = (prev += unzigzag(varint(bytes, pos))) / 1e6;
+        d.fill = new int[n];
+        d.overflow = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int b = bytes[pos[0]++] & 0xFF;
+            d.fill[i] = b & 0x7F;
+            d.overflow[i] = (b & 0x80) != 0;
+        }
+        if ((d.flags & BinFeedCodec.FLAG_CAPACITY) != 0) {
+            d.capacity = new int[n];
+            for (int i = 0; i < n; i++) d.capacity[i] = (int) varint(bytes, pos);
+        }
+        assertEquals(bytes.length, pos[0], "trailing bytes");
+        return d;
+    }
+
+    private static long varint(byte[] bytes, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = bytes[pos[0]++] & 0xFF;
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    @Test
+    void roundTripWithNegativeDeltas() {
+        BinFeedCodec codec = new BinFeedCodec(2, true);
+        // ids go down and up, coordinates cross zero in both directions, more rows than the initial capacity
+        codec.add(1_000_000_000_000L, 6.927079, 79.861244, 40, false, 240);
+        codec.add(5, -33.868820, -151.209296, 100, true, 0);
+        codec.add(3, 51.507351, -0.127758, 0, false, 1100);
+        codec.add(Long.MAX_VALUE / 2, -89.999999, 179.999999, 95, true, 660);
+        codec.add(-7, 0.0, 0.0, 12, false, 120);
+
+        Decoded d = decode(codec.encode());
+
+        assertEquals(BinFeedCodec.VERSION, d.version);
+        assertEquals(BinFeedCodec.FLAG_CAPACITY, d.flags);
+        assertArrayEquals(new long[]{1_000_000_000_000L, 5, 3, Long.MAX_VALUE / 2, -7}, d.ids);
+        assertArrayEquals(new double[]{6.927079, -33.868820, 51.507351, -89.999999, 0.0}, d.lat, 1e-9);
+        assertArrayEquals(new double[]{79.861244, -151.209296, -0.127758, 179.999999, 0.0}, d.lng, 1e-9);
+        assertArrayEquals(new int[]{40, 100, 0, 95, 12}, d.fill);
+        assertArrayEquals(new boolean[]{false, true, false, true, false}, d.overflow);
+        assertArrayEquals(new int[]{240, 0, 1100, 660, 120}, d.capacity);
+    }
+
+    @Test
+    void withoutCapacityColumn() {
+        BinFeedCodec codec = new BinFeedCodec(4, false);
+        codec.add(2, 1.5, -1.5, 50, false, 240);
+        codec.add(1, 1.4, -1.6, 60, true, 240);
+
+        Decoded d = decode(codec.encode());
+
+        assertEquals(0, d.flags);
+        assertNull(d.capacity);
+        assertArrayEquals(new long[]{2, 1}, d.ids);
+        assertArrayEquals(new double[]{1.5, 1.4}, d.lat, 1e-9);
+        assertArrayEquals(new double[]{-1.5, -1.6}, d.lng, 1e-9);
+    }
+
+    @Test
+    void coordinatesRoundToMicroDegreesAndFillIsClamped() {
+        BinFeedCodec codec = new BinFeedCodec(1, true);
+        codec.add(1, 6.9270794, 79.8612446, 150, false, -5);
+        codec.add(2, 6.9270796, 79.8612444, -10, true, 240);
+
+        Decoded d = decode(codec.encode());
+
+        assertArrayEquals(new double[]{6.927079, 6.927080}, d.lat, 1e-9);
+        assertArrayEquals(new double[]{79.861245, 79.861244}, d.lng, 1e-9);
+        assertArrayEquals(new int[]{100, 0}, d.fill);
+        assertArrayEquals(new int[]{0, 240}, d.capacity);
+    }
+
+    @Test
+    void emptyFeed() {
+        Decoded d = decode(new BinFeedCodec(0, true).encode());
+        assertEquals(0, d.ids.length);
+        assertEquals(0, d.capacity.length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.smartwaste.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentileMs(0.99));
+        assertEquals(0, h.maxMs());
+    }
+
+    @Test
+    void bucketsCoverEveryValueOnce() {
+        long previousTop = -1;
+        for (int b = 0; b < 64 * 35; b++) {
+            long top = LatencyHistogram.highestValueIn(b);
+            assertTrue(top > previousTop);
+            assertEquals(b, LatencyHistogram.indexOf(previousTop + 1), "lowest value of bucket " + b);
+            assertEquals(b, LatencyHistogram.indexOf(top), "highest value of bucket " + b);
+            previousTop = top;
+        }
+        assertEquals(64 * 35 - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int us = 1; us <= 50; us++) h.record(us);
+        assertEquals(0.025, h.percentileMs(0.50), 1e-9);
+        assertEquals(0.050, h.percentileMs(1.0), 1e-9);
+    }
+
+    // p50/p95/p99 of a long-tailed sample stay within 1/64 above the exact order statistic
+    @Test
+    void percentilesArePreciseToTheSubBucket() {
+        SplittableRandom random = new SplittableRandom(7);
+        int n = 100_000;
+        long[] values = new long[n];
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < n; i++) {
+            values[i] = (long) (200 * Math.exp(random.nextGaussian() * 1.5));
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(n, h.count());
+        for (double p : new double[]{0.50, 0.95, 0.99}) {
+            double exactMs = values[(int) Math.ceil(p * n) - 1] / 1000.0;
+            double reportedMs = h.percentileMs(p);
+            assertTrue(reportedMs >= exactMs, "p" + p + " below exact");
+            assertTrue(reportedMs <= exactMs * (1 + 1.0 / 64) + 0.001, "p" + p + ": " + reportedMs + " vs " + exactMs);
+        }
+        assertEquals(values[n - 1] / 1000.0, h.percentileMs(1.0), 1e-9);
+        assertEquals(values[n - 1] / 1000.0, h.maxMs(), 1e-9);
+    }
+
+    @Test
+    void concurrentRecordsKeepTheLargestMax() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        int threads = 4;
+        int perThread = 50_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 1; i <= perThread; i++) h.record((long) i * threads + offset);
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+
+        assertEquals((long) threads * perThread, h.count());
+        assertEquals(((long) perThread * threads + threads - 1) / 1000.0, h.maxMs(), 1e-9);
+    }
+}
@@ -0,0 +1,97 @@
+package com.smartwaste.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        map.put(7, 70);
+        map.put(-3, 30);
+        map.put(7, 71);
+
+        assertEquals(2, map.size());
+        assertEquals(71, map.get(7));
+        assertEquals(30, map.get(-3));
+        assertEquals(-1, map.get(8));
+        assertTrue(map.containsKey(-3));
+
+        assertEquals(71, map.remove(7));
+        assertEquals(-1, map.remove(7));
+        assertFalse(map.containsKey(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void reservedKeyIsRejected() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1));
+    }
+
+    @Test
+    void growsPastExpectedSize() {
+        LongIntHashMap map = new LongIntHashMap(2, -1);
+        for (int i = 0; i < 10_000; i++) map.put(i * 31L, i);
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) assertEquals(i, map.get(i * 31L));
+    }
+
+    // Dense keys in a small table give long probe chains that wrap around the end of the array;
+    // backward-shift deletion must keep every remaining key reachable without tombstones.
+    @Test
+    void backwardShiftDeleteKeepsProbeChainsIntact() {
+        SplittableRandom random = new SplittableRandom(42);
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(48);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? -1 : removed, map.remove(key), "remove " + key);
+            } else {
+                int value = random.nextInt(1_000_000);
+                expected.put(key, value);
+                map.put(key, value);
+            }
+
+            if (op % 97 == 0) {
+                assertEquals(expected.size(), map.size());
+                for (long k = 0; k < 48; k++) {
+                    Integer v = expected.get(k);
+                    assertEquals(v == null ? -1 : v, map.get(k), "get " + k + " after op " + op);
+                }
+            }
+        }
+    }
+
+    @Test
+    void removingEveryKeyEmptiesTheMap() {
+        LongIntHashMap map = new LongIntHashMap(8, -1);
+        for (long k = 0; k < 1000; k++) map.put(k, (int) k);
+        for (long k = 0; k < 1000; k += 2) assertEquals((int) k, map.remove(k));
+        for (long k = 1; k < 1000; k += 2) assertEquals((int) k, map.get(k));
+        for (long k = 1; k < 1000; k += 2) map.remove(k);
+
+        assertEquals(0, map.size());
+        for (long k = 0; k < 1000; k++) assertFalse(map.containsKey(k));
+    }
+
+    @Test
+    void clearKeepsTheMapUsable() {
+        LongIntHashMap map = new LongIntHashMap(8, 0);
+        map.put(1, 5);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(1));
+        map.put(1, 6);
+        assertEquals(6, map.get(1));
+    }
+}
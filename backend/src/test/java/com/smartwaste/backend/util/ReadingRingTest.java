@@ -0,0 +1,181 @@
+package com.smartwaste.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingRingTest {
+
+    private record Reading(long binId, int level, long measuredAt) {
+    }
+
+    private static List<Reading> drainAll(ReadingRing ring) {
+        List<Reading> out = new ArrayList<>();
+        ring.drain(Integer.MAX_VALUE, (binId, level, measuredAt, enqueuedAt) ->
+                out.add(new Reading(binId, level, measuredAt)));
+        return out;
+    }
+
+    private static boolean offer(ReadingRing ring, long firstId, int n) {
+        long[] ids = new long[n];
+        int[] levels = new int[n];
+        long[] measured = new long[n];
+        for (int k = 0; k < n; k++) {
+            ids[k] = firstId + k;
+            levels[k] = (int) ((firstId + k) % 101);
+            measured[k] = 1000 + firstId + k;
+        }
+        return ring.offer(ids, levels, measured, 0, n);
+    }
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new ReadingRing(5).capacity());
+        assertEquals(8, new ReadingRing(8).capacity());
+        assertEquals(4, new ReadingRing(0).capacity());
+    }
+
+    @Test
+    void offerHonoursFromAndKeepsFields() {
+        ReadingRing ring = new ReadingRing(8);
+        assertTrue(ring.offer(new long[]{9, 10, 11}, new int[]{90, 100, 11}, new long[]{1, 2, 3}, 1, 2));
+
+        assertEquals(List.of(new Reading(10, 100, 2), new Reading(11, 11, 3)), drainAll(ring));
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void wrapsAroundTheEndOfTheArray() {
+        ReadingRing ring = new ReadingRing(8);
+        long next = 0;
+        for (int round = 0; round < 100; round++) {
+            int n = 1 + round % 8;               // batches straddle the end of the array at shifting offsets
+            assertTrue(offer(ring, next, n), "round " + round);
+            List<Reading> drained = drainAll(ring);
+            assertEquals(n, drained.size());
+            for (int k = 0; k < n; k++) {
+                assertEquals(next + k, drained.get(k).binId());
+                assertEquals(1000 + next + k, drained.get(k).measuredAt());
+            }
+            next += n;
+        }
+    }
+
+    @Test
+    void offerIsAllOrNothingWhenFull() {
+        ReadingRing ring = new ReadingRing(8);
+        assertTrue(offer(ring, 0, 6));
+
+        assertFalse(offer(ring, 100, 3));         // only 2 slots left: nothing goes in
+        assertEquals(6, ring.size());
+        assertFalse(offer(ring, 100, 9));         // larger than the ring
+        assertTrue(offer(ring, 6, 2));
+        assertFalse(offer(ring, 100, 1));
+        assertEquals(8, ring.size());
+
+        assertEquals(3, ring.drain(3, (binId, level, measuredAt, enqueuedAt) -> { }));
+        assertTrue(offer(ring, 8, 3));            // freed slots are usable again
+
+        List<Reading> rest = drainAll(ring);
+        assertEquals(8, rest.size());
+        for (int k = 0; k < rest.size(); k++) assertEquals(3 + k, rest.get(k).binId());
+    }
+
+    @Test
+    void drainStopsAtAClaimedSlotNotYetPublished() {
+        ReadingRing ring = new ReadingRing(8);
+
+        // producer A claims two slots and stalls before writing them
+        long a = ring.claim(2);
+        assertEquals(0, a);
+        // producer B claims after A and publishes right away
+        assertTrue(offer(ring, 10, 3));
+
+        assertEquals(5, ring.size());
+        assertEquals(List.of(), drainAll(ring));   // B's readings wait behind A's unwritten slot
+
+        ring.publish(a, 1, 1, 1, 0);
+        assertEquals(List.of(new Reading(1, 1, 1)), drainAll(ring));
+
+        ring.publish(a + 1, 2, 2, 2, 0);
+        List<Reading> rest = drainAll(ring);
+        assertEquals(List.of(2L, 10L, 11L, 12L), rest.stream().map(Reading::binId).toList());
+        assertEquals(0, ring.size());
+    }
+
+    // Producers offer numbered batches while one consumer drains: every reading arrives once, each
+    // producer's readings in order, and each batch contiguous.
+    @Test
+    void multipleProducersOneConsumer() throws Exception {
+        int producers = 4;
+        int batches = 2_000;
+        int batchSize = 5;
+        ReadingRing ring = new ReadingRing(64);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    long[] ids = new long[batchSize];
+                    int[] levels = new int[batchSize];
+                    long[] measured = new long[batchSize];
+                    for (int b = 0; b < batches; b++) {
+                        for (int k = 0; k < batchSize; k++) {
+                            ids[k] = (long) producer << 32 | (long) b * batchSize + k;
+                            levels[k] = k;
+                        }
+                        while (!ring.offer(ids, levels, measured, 0, batchSize)) Thread.yield();
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }, "ring-producer-" + p);
+            t.start();
+            threads.add(t);
+        }
+
+        long[] nextOf = new long[producers];
+        int[] batchPosition = {0};
+        int[] batchProducer = {-1};
+        AtomicBoolean broken = new AtomicBoolean();
+        int total = producers * batches * batchSize;
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        start.countDown();
+        while (received < total && System.nanoTime() < deadline) {
+            int n = ring.drain(16, (binId, level, measuredAt, enqueuedAt) -> {
+                int producer = (int) (binId >>> 32);
+                long seq = binId & 0xFFFFFFFFL;
+                if (seq != nextOf[producer]++) broken.set(true);
+                // a batch is never interleaved with another producer's readings
+                if (level == 0) {
+                    batchProducer[0] = producer;
+                } else if (batchProducer[0] != producer || level != batchPosition[0] + 1) {
+                    broken.set(true);
+                }
+                batchPosition[0] = level;
+            });
+            received += n;
+            if (n == 0) Thread.yield();
+        }
+        for (Thread t : threads) t.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertNull(failure.get());
+        assertEquals(total, received);
+        assertFalse(broken.get(), "readings out of order or batches interleaved");
+        for (long next : nextOf) assertEquals((long) batches * batchSize, next);
+        assertEquals(0, ring.size());
+    }
+}
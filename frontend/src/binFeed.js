@@ -0,0 +1,69 @@
+// Decoder for the compact bin feed (Accept: application/vnd.smartwaste.bins).
+// Layout documented in backend util/BinFeedCodec.java.
+
+export const BIN_FEED_TYPE = "application/vnd.smartwaste.bins";
+
+const FLAG_CAPACITY = 1;
+
+export async function fetchBinFeed(url) {
+  const res = await fetch(url, { headers: { Accept: BIN_FEED_TYPE } });
+  if (!res.ok) throw new Error(`HTTP ${res.status}`);
+  return decodeBinFeed(await res.arrayBuffer());
+}
+
+// -> [{ id, latitude, longitude, fillLevel, overflow, capacityLiters }]
+export function decodeBinFeed(buffer) {
+  const bytes = new Uint8Array(buffer);
+  let pos = 0;
+
+  // unsigned LEB128; values stay below 2^53 so plain numbers are exact
+  const varint = () => {
+    let result = 0;
+    let scale = 1;
+    let b;
+    do {
+      b = bytes[pos++];
+      result += (b & 0x7f) * scale;
+      scale *= 128;
+    } while (b & 0x80);
+    return result;
+  };
+  const zigzag = () => {
+    const v = varint();
+    return v % 2 === 0 ? v / 2 : -(v + 1) / 2;
+  };
+
+  const version = bytes[pos++];
+  if (version !== 1) throw new Error(`Unsupported bin feed version ${version}`);
+  const flags = bytes[pos++];
+  const count = varint();
+
+  const bins = new Array(count);
+  let id = 0;
+  for (let i = 0; i < count; i++) {
+    id += zigzag();
+    bins[i] = { id, latitude: 0, longitude: 0, fillLevel: 0, overflow: false, capacityLiters: null };
+  }
+  let lat = 0;
+  for (let i = 0; i < count; i++) {
+    lat += zigzag();
+    bins[i].latitude = lat / 1e6;
+  }
+  let lng = 0;
+  for (let i = 0; i < count; i++) {
+    lng += zigzag();
+    bins[i].longitude = lng / 1e6;
+  }
+  for (let i = 0; i < count; i++) {
+    const f = bytes[pos++];
+    bins[i].fillLevel = f & 0x7f;
+    bins[i].overflow = (f & 0x80) !== 0;
+  }
+  if (flags & FLAG_CAPACITY) {
+    for (let i = 0; i < count; i++) {
+      const c = varint();
+      bins[i].capacityLiters = c === 0 ? null : c;
+    }
+  }
+  return bins;
+}
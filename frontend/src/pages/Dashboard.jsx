@@ -1,10 +1,11 @@
 import { useEffect, useMemo, useRef, useState } from "react";
-import { MapContainer, TileLayer, Marker, Popup, useMap, Polyline } from "react-leaflet";
+import { MapContainer, TileLayer, Marker, Popup, useMap, useMapEvents, Polyline } from "react-leaflet";
 import "leaflet/dist/leaflet.css";
 
 import { getBinIcon } from "../binIcon";
 import { getDriverIcon } from "../driverIcon";
 import HeatLayer from "../components/HeatLayer";
+import { fetchBinFeed } from "../binFeed";
 
 const API = "http://localhost:8080";
 
@@ -33,6 +34,31 @@ function FitBoundsOnce({ bins, drivers }) {
   return null;
 }
 
+// ✅ Reports the visible box + zoom (initially and after every pan/zoom)
+function ViewportWatcher({ onChange }) {
+  const map = useMapEvents({
+    moveend: () => onChange(viewportOf(map)),
+  });
+
+  useEffect(() => {
+    onChange(viewportOf(map));
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [map]);
+
+  return null;
+}
+
+function viewportOf(map) {
+  const b = map.getBounds();
+  return {
+    south: b.getSouth(),
+    west: b.getWest(),
+    north: b.getNorth(),
+    east: b.getEast(),
+    zoom: map.getZoom(),
+  };
+}
+
 export default function Dashboard() {
   const [bins, setBins] = useState([]);
   const [drivers, setDrivers] = useState([]);
@@ -52,38 +78,35 @@ export default function Dashboard() {
   // ✅ Heatmap (REAL TIME, yellow/red ONLY)
   const [heatmapOn, setHeatmapOn] = useState(false);
   const [heatPoints, setHeatPoints] = useState([]);
+  const viewportRef = useRef(null);
 
   const fetchBinsNow = async () => {
-    const res = await fetch(`${API}/api/bins`);
-    const data = await res.json();
-    setBins(data || []);
-    return data || [];
+    const data = await fetchBinFeed(`${API}/api/bins`);
+    setBins(data);
+    return data;
   };
 
-  // ✅ Fetch heatmap from backend (backend returns only fill>=80 or overflow)
+  // ✅ Fetch heatmap cells for the visible map area (backend aggregates yellow/red bins per zoom level)
   const fetchHeatmap = async () => {
+    const v = viewportRef.current;
+    if (!v) return;
+
     try {
-      const res = await fetch(`${API}/api/heatmap/bins`);
+      const params = new URLSearchParams({
+        south: String(v.south),
+        west: String(v.west),
+        north: String(v.north),
+        east: String(v.east),
+        zoom: String(Math.round(v.zoom)),
+      });
+      const res = await fetch(`${API}/api/heatmap/cells?${params}`);
       const data = await res.json();
 
-      // Real-time: only yellow/red bins should be returned already.
-      // But we also double-filter here for safety.
-      const pts = (data || [])
-        .map((row) => {
-          const lat = Number(row.latitude);
-          const lng = Number(row.longitude);
-          const fill = Number(row.fill_level ?? row.fillLevel ?? 0);
-          const overflow = Boolean(row.overflow);
-
-          if (!Number.isFinite(lat) || !Number.isFinite(lng)) return null;
-
-          // ✅ Only show yellow/red
-          if (!overflow && fill < 80) return null;
-
-          const intensity = Math.min(1, Math.max(0, fill / 100));
-          return [lat, lng, intensity];
-        })
-        .filter(Boolean);
+      // rows: [lat, lng, count, maxFill, overflowCount]
+      const pts = (data?.cells || []).map(([lat, lng, , maxFill, overflowCount]) => {
+        const intensity = overflowCount > 0 ? 1 : Math.min(1, Math.max(0, maxFill / 100));
+        return [lat, lng, intensity];
+      });
 
       setHeatPoints(pts);
     } catch (e) {
@@ -92,16 +115,21 @@ export default function Dashboard() {
     }
   };
 
+  const onViewportChange = (v) => {
+    viewportRef.current = v;
+    if (heatmapOn) fetchHeatmap();
+  };
+
   // ✅ LIVE bins polling every 3 seconds + sync heatmap (real time)
   useEffect(() => {
     let alive = true;
 
     const fetchBins = async () => {
       try {
-        const res = await fetch(`${API}/api/bins`);
-        const data = await res.json();
+        // ✅ compact binary feed (same fields as the JSON list, a fraction of the bytes)
+        const data = await fetchBinFeed(`${API}/api/bins`);
         if (!alive) return;
-        setBins(data || []);
+        setBins(data);
 
         // ✅ When heatmap ON, refresh heatmap at SAME RATE (real time)
         if (heatmapOn) {
@@ -583,6 +611,7 @@ export default function Dashboard() {
           <TileLayer attribution="&copy; OpenStreetMap contributors" url="https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png" />
 
           <FitBoundsOnce bins={bins} drivers={driversToDisplay} />
+          <ViewportWatcher onChange={onViewportChange} />
 
           {/* ✅ Heatmap */}
           <HeatLayer points={heatPoints} enabled={heatmapOn} />
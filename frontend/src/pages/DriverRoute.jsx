@@ -1,5 +1,6 @@
 import { useEffect, useMemo, useState } from "react";
 import { useParams } from "react-router-dom";
+import { fetchBinFeed } from "../binFeed";
 
 const API = "http://localhost:8080";
 
@@ -24,10 +25,9 @@ export default function DriverRoute() {
   };
 
   const fetchBins = async () => {
-    const res = await fetch(`${API}/api/bins`);
-    const data = await res.json();
-    setBins(data || []);
-    return data || [];
+    const data = await fetchBinFeed(`${API}/api/bins`);
+    setBins(data);
+    return data;
   };
 
   useEffect(() => {
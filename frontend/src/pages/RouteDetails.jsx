@@ -12,10 +12,8 @@ export default function RouteDetails() {
   const fetchRoute = async () => {
     setLoading(true);
     try {
-      const res = await fetch("http://localhost:8080/api/routes");
-      const all = await res.json();
-      const found = (all || []).find(r => String(r.id) === String(id));
-      setRoute(found || null);
+      const res = await fetch(`http://localhost:8080/api/routes/${id}`);
+      setRoute(res.ok ? await res.json() : null);
     } catch (e) {
       console.error(e);
       setRoute(null);
@@ -1,50 +1,83 @@
 // frontend/src/pages/Routes.jsx
-import { useEffect, useMemo, useState } from "react";
+import { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
 
 export default function RoutesPage() {
   const navigate = useNavigate();
 
   const [routes, setRoutes] = useState([]);
-  const [selectedDate, setSelectedDate] = useState("");
+  const [availableDates, setAvailableDates] = useState([]);
+  const [selectedDate, setSelectedDate] = useState(null); // null = not picked yet, "" = all dates
+  const [nextAfterId, setNextAfterId] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+
+  // ✅ dates come from the server (no need to download every route to build the dropdown)
+  const fetchDates = async () => {
+    try {
+      const res = await fetch("http://localhost:8080/api/routes/dates");
+      const data = await res.json();
+      const dates = (data || []).map((d) => d.routeDate);
+      setAvailableDates(dates);
+      setSelectedDate((prev) => (prev === null ? dates[0] || "" : prev));
+    } catch (e) {
+      console.error(e);
+      setAvailableDates([]);
+      setSelectedDate((prev) => (prev === null ? "" : prev));
+    }
+  };
+
+  // ✅ one page of routes (newest first); afterId continues from the previous page
+  const fetchPage = async (afterId) => {
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    if (selectedDate) params.set("date", selectedDate);
+    if (afterId != null) params.set("afterId", String(afterId));
+
+    const res = await fetch(`http://localhost:8080/api/routes?${params}`);
+    const data = await res.json();
+    setNextAfterId(res.headers.get("X-Next-After-Id"));
+    return data || [];
+  };
 
   const fetchRoutes = async () => {
     try {
       setLoading(true);
-      const res = await fetch("http://localhost:8080/api/routes");
-      const data = await res.json();
-      setRoutes(data || []);
+      setRoutes(await fetchPage(null));
     } catch (e) {
       console.error(e);
       setRoutes([]);
+      setNextAfterId(null);
     } finally {
       setLoading(false);
     }
   };
 
-  useEffect(() => {
-    fetchRoutes();
-  }, []);
-
-  const availableDates = useMemo(() => {
-    const set = new Set();
-    for (const r of routes) {
-      if (r.routeDate) set.add(r.routeDate);
+  const loadMore = async () => {
+    if (!nextAfterId) return;
+    try {
+      setLoadingMore(true);
+      const more = await fetchPage(nextAfterId);
+      setRoutes((prev) => [...prev, ...more]);
+    } catch (e) {
+      console.error(e);
+    } finally {
+      setLoadingMore(false);
     }
-    return Array.from(set).sort((a, b) => b.localeCompare(a));
-  }, [routes]);
+  };
+
+  const refresh = () => {
+    fetchDates();
+    fetchRoutes();
+  };
 
   useEffect(() => {
-    if (!selectedDate && availableDates.length > 0) {
-      setSelectedDate(availableDates[0]);
-    }
-  }, [availableDates, selectedDate]);
+    fetchDates();
+  }, []);
 
-  const filteredRoutes = useMemo(() => {
-    if (!selectedDate) return routes;
-    return routes.filter((r) => r.routeDate === selectedDate);
-  }, [routes, selectedDate]);
+  useEffect(() => {
+    if (selectedDate !== null) fetchRoutes();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [selectedDate]);
 
   const badge = (status) => {
     const s = String(status || "").toLowerCase();
@@ -65,7 +98,7 @@ export default function RoutesPage() {
 
         <div style={{ display: "flex", gap: 10, alignItems: "center", flexWrap: "wrap" }}>
           <select
-            value={selectedDate}
+            value={selectedDate || ""}
             onChange={(e) => setSelectedDate(e.target.value)}
             style={selectStyle}
           >
@@ -77,7 +110,7 @@ export default function RoutesPage() {
             ))}
           </select>
 
-          <button style={btnPrimary} onClick={fetchRoutes}>
+          <button style={btnPrimary} onClick={refresh}>
             🔄 Refresh
           </button>
         </div>
@@ -86,7 +119,7 @@ export default function RoutesPage() {
       <div style={{ marginTop: 14, ...cardStyle }}>
         {loading ? (
           <div>Loading routes...</div>
-        ) : filteredRoutes.length === 0 ? (
+        ) : routes.length === 0 ? (
           <div style={{ color: "#6b7280" }}>
             No routes found for: <strong>{selectedDate || "All Dates"}</strong>
           </div>
@@ -106,7 +139,7 @@ export default function RoutesPage() {
               </thead>
 
               <tbody>
-                {filteredRoutes.map((r) => {
+                {routes.map((r) => {
                   return (
                     <tr
                       key={r.id}
@@ -142,8 +175,14 @@ export default function RoutesPage() {
             </table>
 
             <div style={{ marginTop: 10, color: "#6b7280", fontSize: 13 }}>
-              ✅ Total routes shown: <strong>{filteredRoutes.length}</strong>
+              ✅ Total routes shown: <strong>{routes.length}</strong>
             </div>
+
+            {nextAfterId && (
+              <button style={{ ...btnPrimary, marginTop: 10 }} onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? "Loading..." : "Load more"}
+              </button>
+            )}
           </div>
         )}
       </div>
@@ -151,6 +190,8 @@ export default function RoutesPage() {
   );
 }
 
+const PAGE_SIZE = 200;
+
 /* ------------ styles ------------ */
 
 const cardStyle = {